@@ -0,0 +1,23 @@
+#!/bin/sh
+# Generates a self-signed server keystore and a client truststore for local TLS testing.
+# Usage: bench/gen-certs.sh [outputDir]
+set -e
+
+OUT_DIR="${1:-bench/certs}"
+PASSWORD="changeit"
+
+mkdir -p "$OUT_DIR"
+rm -f "$OUT_DIR/server.p12" "$OUT_DIR/server.cer" "$OUT_DIR/truststore.p12"
+
+keytool -genkeypair -alias dictionary -keyalg EC -groupname secp256r1 -validity 365 \
+    -dname "CN=localhost" -ext "SAN=dns:localhost,ip:127.0.0.1" \
+    -storetype PKCS12 -keystore "$OUT_DIR/server.p12" -storepass "$PASSWORD"
+
+keytool -exportcert -alias dictionary -keystore "$OUT_DIR/server.p12" -storepass "$PASSWORD" \
+    -file "$OUT_DIR/server.cer"
+
+keytool -importcert -noprompt -alias dictionary -file "$OUT_DIR/server.cer" \
+    -storetype PKCS12 -keystore "$OUT_DIR/truststore.p12" -storepass "$PASSWORD"
+
+echo "Server: -Djavax.net.ssl.keyStore=$OUT_DIR/server.p12 -Djavax.net.ssl.keyStorePassword=$PASSWORD"
+echo "Client: -Djavax.net.ssl.trustStore=$OUT_DIR/truststore.p12 -Djavax.net.ssl.trustStorePassword=$PASSWORD"
@@ -0,0 +1,127 @@
+package bench;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import javax.net.SocketFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+
+/**
+ * The TransportBenchmark class measures connection setup rate and per-request latency
+ * against a running dictionary server, so plaintext and TLS transports can be compared.
+ *
+ * <p>Usage: {@code java bench.TransportBenchmark <host> <port> <plain|tls> [connections] [requests]}
+ *
+ * <p>In TLS mode the connection test runs twice: once with a fresh SSL context per connection
+ * (every handshake is a full handshake) and once with a shared context (handshakes resume the cached session).
+ * Generate certificates with {@code bench/gen-certs.sh} and pass the printed trust store properties.
+ */
+public class TransportBenchmark {
+    private static final String REQUEST = "QUERY:rain";
+
+    /**
+     * Runs the benchmark and prints the results.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            throw new IllegalArgumentException("Usage: TransportBenchmark <host> <port> <plain|tls> [connections] [requests]");
+        }
+        String host = args[0];
+        int port = Integer.parseInt(args[1]);
+        boolean tls = args[2].equalsIgnoreCase("tls");
+        int connections = (args.length > 3) ? Integer.parseInt(args[3]) : 500;
+        int requests = (args.length > 4) ? Integer.parseInt(args[4]) : 20_000;
+
+        if (tls) {
+            // Warm up the JIT and crypto providers before measuring
+            measureConnections(host, port, connections / 10, true, false);
+            report("TLS full handshake", connections, measureConnections(host, port, connections, true, false));
+            report("TLS resumed", connections, measureConnections(host, port, connections, true, true));
+        }
+        else {
+            measureConnections(host, port, connections / 10, false, false);
+            report("Plaintext connect", connections, measureConnections(host, port, connections, false, false));
+        }
+
+        long requestNanos = measureRequests(host, port, requests, tls);
+        System.out.printf("%-20s %8.1f us/request%n", tls ? "TLS request" : "Plaintext request",
+                requestNanos / 1_000.0 / requests);
+    }
+
+    /**
+     * Opens the given number of connections one after another, sending one request on each.
+     * Returns the elapsed time in nanoseconds.
+     */
+    private static long measureConnections(String host, int port, int connections, boolean tls, boolean resume)
+            throws Exception {
+        SSLSocketFactory shared = tls ? newSslContext().getSocketFactory() : null;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < connections; i++) {
+            SocketFactory factory = !tls ? SocketFactory.getDefault()
+                    : resume ? shared : newSslContext().getSocketFactory();
+            try (Socket socket = open(factory, host, port)) {
+                DataOutputStream dos = new DataOutputStream(socket.getOutputStream());
+                DataInputStream dis = new DataInputStream(socket.getInputStream());
+                dos.writeUTF(REQUEST);
+                dis.readUTF();
+                dos.writeUTF("EXIT");
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Sends the given number of requests over a single connection.
+     * Returns the elapsed time in nanoseconds, excluding connection setup.
+     */
+    private static long measureRequests(String host, int port, int requests, boolean tls) throws Exception {
+        SocketFactory factory = tls ? newSslContext().getSocketFactory() : SocketFactory.getDefault();
+        try (Socket socket = open(factory, host, port)) {
+            DataOutputStream dos = new DataOutputStream(socket.getOutputStream());
+            DataInputStream dis = new DataInputStream(socket.getInputStream());
+
+            // Warm up before measuring
+            for (int i = 0; i < requests / 10; i++) {
+                dos.writeUTF(REQUEST);
+                dis.readUTF();
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                dos.writeUTF(REQUEST);
+                dis.readUTF();
+            }
+            long elapsed = System.nanoTime() - start;
+            dos.writeUTF("EXIT");
+            return elapsed;
+        }
+    }
+
+    private static Socket open(SocketFactory factory, String host, int port) throws IOException {
+        Socket socket = factory.createSocket(host, port);
+        socket.setTcpNoDelay(true);
+        if (socket instanceof SSLSocket) {
+            ((SSLSocket) socket).startHandshake();
+        }
+        return socket;
+    }
+
+    /**
+     * Creates a new SSL context with its own empty session cache, trusting the default trust store.
+     */
+    private static SSLContext newSslContext() throws Exception {
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, null, null);
+        return context;
+    }
+
+    private static void report(String label, int connections, long nanos) {
+        System.out.printf("%-20s %8.1f connections/s  %8.1f us/connection%n", label,
+                connections / (nanos / 1e9), nanos / 1_000.0 / connections);
+    }
+}
@@ -7,7 +7,7 @@ import java.awt.event.*;
 
 /**
  * The ClientFrame class provides a simple GUI for entering
- * hostname and port connection details for the dictionary client.
+ * hostname, port and TLS connection details for the dictionary client.
  * Once the user submits the information via the Connect button,
  * it passes the details to a ConnectionListener.
  */
@@ -16,6 +16,9 @@ public class ClientFrame extends JFrame implements ActionListener {
     private final JTextField hostnameField;
     private final JTextField portField;
 
+    // Checkbox to connect over TLS
+    private final JCheckBox tlsCheckBox;
+
     // Button to trigger connection
     private final JButton connectButton;
 
@@ -57,11 +60,17 @@ public class ClientFrame extends JFrame implements ActionListener {
         gbc.gridy = 1;
         add(portField, gbc);
 
+        // TLS checkbox.
+        tlsCheckBox = new JCheckBox("Use TLS");
+        gbc.gridx = 1;
+        gbc.gridy = 2;
+        add(tlsCheckBox, gbc);
+
         // Connect button setup
         connectButton = new JButton("Connect Now");
         connectButton.addActionListener(this);
         gbc.gridx = 0;
-        gbc.gridy = 2;
+        gbc.gridy = 3;
         gbc.gridwidth = 2;
         add(connectButton, gbc);
 
@@ -92,7 +101,7 @@ public class ClientFrame extends JFrame implements ActionListener {
         }
         // Pass the provided connection details back via the listener.
         if (listener != null) {
-            listener.onConnectionDetailsProvided(hostname, port);
+            listener.onConnectionDetailsProvided(hostname, port, tlsCheckBox.isSelected());
         }
         dispose(); // Close the connection frame.
     }
@@ -1,5 +1,9 @@
 package client;
 
+import javax.net.SocketFactory;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
 import javax.swing.SwingUtilities;
 import java.net.*;
 import java.io.*;
@@ -15,10 +19,19 @@ import java.util.concurrent.CountDownLatch;
 public class DictionaryClient {
     private String hostname;
     private int port;
+    private boolean useTls;
     private Socket socket;
     private DataOutputStream dos;
     private DataInputStream dis;
 
+    // Bulk transfer framing, must match server.ClientHandler
+    private static final String DATA_PREFIX = "Data:";
+    private static final String PART_PREFIX = "Part:";
+    private static final int CHUNK_CHARS = 16 * 1024;
+
+    // Set once the server accepts compressed framing, null while responses are plain UTF strings
+    private ResponseDecoder decoder;
+
 
     /**
      * Constructs a new DictionaryClient.
@@ -38,9 +51,10 @@ public class DictionaryClient {
         final DictionaryClient client = new DictionaryClient();
 
         // Launch the connection GUI on the Swing thread.
-        SwingUtilities.invokeLater(() -> new ClientFrame((host, port) -> {
+        SwingUtilities.invokeLater(() -> new ClientFrame((host, port, useTls) -> {
             client.hostname = host;
             client.port = port;
+            client.useTls = useTls;
             latch.countDown(); // Release the latch when user provides input
         }));
 
@@ -55,7 +69,8 @@ public class DictionaryClient {
 
         // Try to connect using the provided hostname and port.
         if (client.connect()) {
-            System.out.println("Connected to dictionary server at " + client.hostname + ":" + client.port);
+            System.out.println("Connected to dictionary server at " + client.hostname + ":" + client.port
+                    + (client.useTls ? " (TLS)" : ""));
             // Launch the operations frame on the Swing thread.
             SwingUtilities.invokeLater(() -> new DictionaryOperationsFrame(client));
         }
@@ -67,12 +82,27 @@ public class DictionaryClient {
 
     /**
      * Attempts to open a socket connection using the hostname and port.
+     * TLS connections are created from the shared default factory so that reconnects to the
+     * same server resume the cached session instead of doing a full handshake.
+     * The server certificate and hostname are checked against the standard {@code javax.net.ssl.trustStore}.
      */
     private boolean connect() {
         try {
-            socket = new Socket(hostname, port);
+            if (useTls) {
+                SSLSocket sslSocket = (SSLSocket) SSLSocketFactory.getDefault().createSocket(hostname, port);
+                // Check that the certificate was issued for the host we asked for
+                SSLParameters params = sslSocket.getSSLParameters();
+                params.setEndpointIdentificationAlgorithm("HTTPS");
+                sslSocket.setSSLParameters(params);
+                sslSocket.startHandshake();
+                socket = sslSocket;
+            }
+            else {
+                socket = SocketFactory.getDefault().createSocket(hostname, port);
+            }
             dos = new DataOutputStream(socket.getOutputStream());
             dis = new DataInputStream(socket.getInputStream());
+            negotiateCompression();
             return true;
         }
         catch (IOException e) {
@@ -82,10 +112,106 @@ public class DictionaryClient {
         }
     }
 
+    /**
+     * Asks the server for compressed framing with this client's preset dictionary. Servers that do not
+     * support it, or have a different dictionary, reply with an error and the connection stays on plain UTF strings.
+     */
+    private void negotiateCompression() throws IOException {
+        dos.writeUTF("COMPRESS:DEFLATE:" + ResponseDecoder.DICTIONARY_ID);
+        String reply = dis.readUTF();
+        if (reply.startsWith("Success")) {
+            decoder = new ResponseDecoder();
+        }
+    }
+
+    /**
+     * Reads the next response from the server using the negotiated framing.
+     */
+    protected String readResponse() throws IOException {
+        return (decoder != null) ? decoder.readFrame(dis) : dis.readUTF();
+    }
+
+    /**
+     * Streams the server's dictionary into the given writer, one CSV line per word.
+     * Returns the server's final status message.
+     */
+    protected String exportTo(BufferedWriter writer) throws IOException {
+        dos.writeUTF("EXPORT");
+        while (true) {
+            String response = readResponse();
+            if (response.startsWith(PART_PREFIX)) {
+                // A piece of a long line that continues in the next message
+                writer.write(response, PART_PREFIX.length(), response.length() - PART_PREFIX.length());
+                continue;
+            }
+            if (!response.startsWith(DATA_PREFIX)) {
+                return response;
+            }
+            // Chunks start with the prefix followed by newline-separated lines
+            writer.write(response, DATA_PREFIX.length() + 1, response.length() - DATA_PREFIX.length() - 1);
+            writer.newLine();
+        }
+    }
+
+    /**
+     * Streams CSV lines from the given reader into the server's dictionary.
+     * Lines are sent in bounded chunks, so the file is never held in memory as a whole.
+     * Returns the server's final status message.
+     */
+    protected String importFrom(BufferedReader reader) throws IOException {
+        dos.writeUTF("IMPORT");
+        String reply = readResponse();
+        if (!reply.startsWith("Ready")) {
+            return reply;
+        }
+
+        StringBuilder chunk = new StringBuilder(DATA_PREFIX);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            appendLine(chunk, line);
+        }
+        if (chunk.length() > DATA_PREFIX.length()) {
+            dos.writeUTF(chunk.toString());
+        }
+        dos.writeUTF("END");
+        return readResponse();
+    }
+
+    /**
+     * Adds one line to an import chunk, sending the chunk first if the line does not fit.
+     * A line longer than a chunk is sent in PART_PREFIX pieces, and its last piece goes into the new chunk.
+     */
+    private void appendLine(StringBuilder chunk, String line) throws IOException {
+        if (chunk.length() + line.length() + 1 <= CHUNK_CHARS) {
+            chunk.append('\n').append(line);
+            return;
+        }
+        if (chunk.length() > DATA_PREFIX.length()) {
+            dos.writeUTF(chunk.toString());
+            chunk.setLength(DATA_PREFIX.length());
+        }
+        int start = 0;
+        while (line.length() - start + 1 > CHUNK_CHARS - DATA_PREFIX.length()) {
+            int end = start + CHUNK_CHARS - PART_PREFIX.length();
+            if (Character.isHighSurrogate(line.charAt(end - 1))) {
+                end--; // Keep surrogate pairs in one piece
+            }
+            dos.writeUTF(PART_PREFIX + line.substring(start, end));
+            start = end;
+        }
+        chunk.append('\n').append(line, start, line.length());
+    }
+
     /**
      * Closes the connection and streams.
      */
     protected void disconnect() {
+        if (decoder != null) {
+            decoder.close();
+        }
         try {
             if (dos != null) dos.close();
             if (dis != null) dis.close();
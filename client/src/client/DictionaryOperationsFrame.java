@@ -3,11 +3,17 @@ package client;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
 
 
 /**
  * The DictionaryOperationsFrame provides a GUI for interacting with the dictionary server.
- * Users can perform operations such as querying, adding, removing, appending, and updating words.
+ * Users can perform operations such as querying, adding, removing, appending, updating and scanning words,
+ * can export or import the whole dictionary as a CSV file, and can switch between named dictionaries.
  */
 public class DictionaryOperationsFrame extends JFrame implements ActionListener {
     private final DictionaryClient client;
@@ -16,6 +22,10 @@ public class DictionaryOperationsFrame extends JFrame implements ActionListener
     private final JButton removeButton;
     private final JButton appendButton;
     private final JButton updateButton;
+    private final JButton scanButton;
+    private final JButton exportButton;
+    private final JButton importButton;
+    private final JButton useButton;
     private final JButton exitButton;
 
     /**
@@ -65,11 +75,41 @@ public class DictionaryOperationsFrame extends JFrame implements ActionListener
         gbc.gridy = 2;
         add(updateButton, gbc);
 
+        // Scan button.
+        scanButton = new JButton("Scan Words");
+        scanButton.addActionListener(this);
+        gbc.gridx = 1;
+        gbc.gridy = 2;
+        add(scanButton, gbc);
+
+        // Export button.
+        exportButton = new JButton("Export Dictionary");
+        exportButton.addActionListener(this);
+        gbc.gridx = 0;
+        gbc.gridy = 3;
+        add(exportButton, gbc);
+
+        // Import button.
+        importButton = new JButton("Import Dictionary");
+        importButton.addActionListener(this);
+        gbc.gridx = 1;
+        gbc.gridy = 3;
+        add(importButton, gbc);
+
+        // Use dictionary button.
+        useButton = new JButton("Switch Dictionary");
+        useButton.addActionListener(this);
+        gbc.gridx = 0;
+        gbc.gridy = 4;
+        gbc.gridwidth = 2;
+        add(useButton, gbc);
+
         // Exit button.
         exitButton = new JButton("Exit");
         exitButton.addActionListener(this);
-        gbc.gridx = 1;
-        gbc.gridy = 2;
+        gbc.gridx = 0;
+        gbc.gridy = 5;
+        gbc.gridwidth = 2;
         add(exitButton, gbc);
 
         pack();
@@ -163,6 +203,48 @@ public class DictionaryOperationsFrame extends JFrame implements ActionListener
                 sendRequest(request, "Update Meaning Response");
             }
         }
+        else if (source == scanButton) {
+            JTextField fromField = new JTextField();
+            JTextField toField = new JTextField();
+            Object[] message = {
+                    "From word (optional):", fromField,
+                    "To word, exclusive (optional):", toField
+            };
+            int option = JOptionPane.showConfirmDialog(this, message, "Scan Words", JOptionPane.OK_CANCEL_OPTION);
+            if (option == JOptionPane.OK_OPTION) {
+                String request = "SCAN:" + fromField.getText().trim() + ":" + toField.getText().trim();
+                sendRequest(request, "Scan Response");
+            }
+        }
+        else if (source == useButton) {
+            String name = JOptionPane.showInputDialog(this, "Enter the dictionary name (\"default\" for the server's main dictionary):");
+            if (name != null && !name.trim().isEmpty()) {
+                String request = "USE:" + name.trim();
+                sendRequest(request, "Switch Dictionary Response");
+            }
+        }
+        else if (source == exportButton) {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                File file = chooser.getSelectedFile();
+                try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+                    showResponse(client.exportTo(writer), "Export Response");
+                } catch (Exception ex) {
+                    showError(ex);
+                }
+            }
+        }
+        else if (source == importButton) {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                File file = chooser.getSelectedFile();
+                try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                    showResponse(client.importFrom(reader), "Import Response");
+                } catch (Exception ex) {
+                    showError(ex);
+                }
+            }
+        }
     }
 
     /**
@@ -171,11 +253,24 @@ public class DictionaryOperationsFrame extends JFrame implements ActionListener
     private void sendRequest(String request, String title) {
         try {
             client.getOutputStream().writeUTF(request);
-            String response = client.getInputStream().readUTF();
-            JOptionPane.showMessageDialog(this, response, title, JOptionPane.INFORMATION_MESSAGE);
+            showResponse(client.readResponse(), title);
         } catch (Exception ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error communicating with server: " + ex.getMessage(), "Communication Error", JOptionPane.ERROR_MESSAGE);
+            showError(ex);
         }
     }
+
+    /**
+     * Shows a response from the server.
+     */
+    private void showResponse(String response, String title) {
+        JOptionPane.showMessageDialog(this, response, title, JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Shows an error that occurred while talking to the server.
+     */
+    private void showError(Exception ex) {
+        ex.printStackTrace();
+        JOptionPane.showMessageDialog(this, "Error communicating with server: " + ex.getMessage(), "Communication Error", JOptionPane.ERROR_MESSAGE);
+    }
 }
\ No newline at end of file
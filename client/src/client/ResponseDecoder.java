@@ -0,0 +1,98 @@
+package client;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * The ResponseDecoder class reads compressed response frames from the server
+ * once the connection has negotiated "COMPRESS:DEFLATE:<dictionaryId>".
+ * Each frame is a flag byte, the uncompressed length and the payload length, followed by the payload.
+ * The inflater and buffers are reused between responses.
+ */
+public class ResponseDecoder {
+    // Frame flags, must match server.ResponseEncoder
+    private static final byte FLAG_PLAIN = 0;
+    private static final byte FLAG_DEFLATED = 1;
+
+    // Preset dictionary, must be byte-for-byte identical to server.ResponseEncoder.PRESET_DICTIONARY
+    private static final byte[] PRESET_DICTIONARY = (
+            "precipitation technology company elevation surface companion beverage household "
+            + "domesticated electronic device for processing data Used for computing and storage "
+            + "A collection of A large natural A small A common A popular A written work "
+            + "a person who a kind of a type of used to relating to the act of "
+            + "Success: Error: Word not found. Meanings: [A , a , the , of the , and , or , ]"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    // Adler-32 checksum of the preset dictionary, sent when negotiating so the server can refuse a different copy
+    public static final long DICTIONARY_ID = dictionaryId(PRESET_DICTIONARY);
+
+    private final Inflater inflater = new Inflater();
+    private byte[] payload = new byte[4096];
+    private byte[] output = new byte[4096];
+
+    /**
+     * Reads a single response frame and returns the decoded response.
+     */
+    public String readFrame(DataInputStream dis) throws IOException {
+        byte flag = dis.readByte();
+        int rawLength = dis.readInt();
+        int payloadLength = dis.readInt();
+
+        if (flag == FLAG_PLAIN) {
+            payload = ensureCapacity(payload, payloadLength);
+            dis.readFully(payload, 0, payloadLength);
+            return new String(payload, 0, payloadLength, StandardCharsets.UTF_8);
+        }
+        if (flag != FLAG_DEFLATED) {
+            throw new IOException("Unknown response frame flag: " + flag);
+        }
+
+        payload = ensureCapacity(payload, payloadLength);
+        output = ensureCapacity(output, rawLength);
+        dis.readFully(payload, 0, payloadLength);
+
+        try {
+            inflater.reset();
+            inflater.setInput(payload, 0, payloadLength);
+            int length = 0;
+            while (length < rawLength) {
+                int n = inflater.inflate(output, length, rawLength - length);
+                if (n == 0 && inflater.needsDictionary()) {
+                    if (inflater.getAdler() != DICTIONARY_ID) {
+                        throw new IOException("Response compressed with an unknown dictionary: " + inflater.getAdler());
+                    }
+                    inflater.setDictionary(PRESET_DICTIONARY);
+                }
+                else if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IOException("Truncated compressed response.");
+                }
+                length += n;
+            }
+        }
+        catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed response: " + e.getMessage(), e);
+        }
+        return new String(output, 0, rawLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Releases the native resources held by the inflater.
+     */
+    public void close() {
+        inflater.end();
+    }
+
+    private static long dictionaryId(byte[] dictionary) {
+        Adler32 adler = new Adler32();
+        adler.update(dictionary);
+        return adler.getValue();
+    }
+
+    private static byte[] ensureCapacity(byte[] buffer, int length) {
+        return (buffer.length >= length) ? buffer : new byte[Math.max(length, buffer.length * 2)];
+    }
+}
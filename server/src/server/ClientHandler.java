@@ -2,28 +2,76 @@ package server;
 
 import java.io.*;
 import java.net.Socket;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * The ClientHandler class handles communication with a single client
- * connected to the Dictionary server. It supports concurrent processing of
- * client commands through a thread-per-connection model.
+ * connected to the Dictionary server. Each connection has its own thread that reads requests,
+ * and parsed commands are dispatched to the shared {@link CommandScheduler}: queries to the read pool
+ * and changes to the write pool. The file saves that follow changes run on the dictionary's own save thread.
+ *
+ * <p>Responses are written in request order by a writer thread of the connection, so pool threads never
+ * block on the socket and a client that stops reading only holds up its own connection.
+ * A query waits until earlier changes from the same connection have been applied, but not for their saves.
+ * A change is acknowledged once a save that includes it has finished.
  */
 public class ClientHandler implements Runnable {
     private final Socket clientSocket;
-    private final Dictionary dictionary;
+    private final DictionaryRegistry registry;
+    private final CommandScheduler scheduler;
 
-    // Thread pool to handle individual requests on this persistent connection
-    // private final ExecutorService requestPool = Executors.newCachedThreadPool();
+    // The dictionary selected with "USE", only switched once every pending request has been answered
+    private DictionaryRegistry.Tenant tenant;
+    private Dictionary dictionary;
 
     // Lock to synchronize writes to the output stream
     private final Object writeLock = new Object();
 
+    // Default and maximum number of words returned by one SCAN
+    private static final int DEFAULT_SCAN_LIMIT = 100;
+    private static final int MAX_SCAN_LIMIT = 1000;
+
+    // Bulk transfer framing: each chunk of CSV lines starts with DATA_PREFIX, and IMPORT ends with END_OF_DATA.
+    // A line too long for one chunk is sent as PART_PREFIX pieces, and its last piece starts the next chunk.
+    private static final String DATA_PREFIX = "Data:";
+    private static final String PART_PREFIX = "Part:";
+    private static final String END_OF_DATA = "END";
+
+    // Upper bound on the characters in one chunk, which keeps every chunk within the 64KB writeUTF limit
+    private static final int CHUNK_CHARS = 16 * 1024;
+
+    // Longest line IMPORT will reassemble from pieces; longer lines are skipped
+    private static final int MAX_IMPORT_LINE_CHARS = 64 * CHUNK_CHARS;
+
+    // Number of requests a client may have in flight before the connection stops reading
+    private static final int MAX_PIPELINED_REQUESTS = 32;
+
+    // Set once the client negotiates compressed framing, null while responses are plain UTF strings
+    private volatile ResponseEncoder encoder;
+
+    // Completes once every change sent so far on this connection has been applied
+    private CompletableFuture<Void> lastApplied = CompletableFuture.completedFuture(null);
+
+    // Completes once every query sent since the last change has run, so a change cannot overtake them
+    private CompletableFuture<Void> readsSinceWrite = CompletableFuture.completedFuture(null);
+
+    // Responses waiting for the writer thread, in request order. The connection stops reading while it is full.
+    private final BlockingQueue<PendingResponse> pendingResponses = new ArrayBlockingQueue<>(MAX_PIPELINED_REQUESTS);
+
+    // Completes once every response for requests sent so far has been written
+    private CompletableFuture<Void> lastWritten = CompletableFuture.completedFuture(null);
+
     /**
      * Constructs a new ClientHandler
      */
-    public ClientHandler(Socket clientSocket, Dictionary dictionary) {
+    public ClientHandler(Socket clientSocket, DictionaryRegistry registry, CommandScheduler scheduler) {
         this.clientSocket = clientSocket;
-        this.dictionary = dictionary;
+        this.registry = registry;
+        this.scheduler = scheduler;
     }
 
     /**
@@ -36,32 +84,69 @@ public class ClientHandler implements Runnable {
                 DataInputStream dis = new DataInputStream(clientSocket.getInputStream());
                 DataOutputStream dos = new DataOutputStream(clientSocket.getOutputStream())
         ) {
-            // Continuously read requests from the persistent connection.
-            while (true) {
-                String request = dis.readUTF();
+            // Every connection starts on the default dictionary
+            useTenant(registry.acquire(DictionaryRegistry.DEFAULT_NAME));
+            Thread writer = new Thread(() -> writeResponses(dos), "response-writer-" + clientSocket.getPort());
+            writer.setDaemon(true);
+            writer.start();
+            try {
+                // Continuously read requests from the persistent connection.
+                while (true) {
+                    String request = dis.readUTF();
 
-                // Handle an "EXIT" command to break the loop and end connection.
-                if (request.equalsIgnoreCase("EXIT")) {
-                    break;
-                }
+                    // Handle an "EXIT" command to break the loop and end connection.
+                    if (request.equalsIgnoreCase("EXIT")) {
+                        break;
+                    }
 
-                String response = processRequest(request);
+                    // Negotiate compressed framing. The reply uses the framing in effect before the request,
+                    // so it is a plain UTF string unless compression was already enabled.
+                    if (request.toUpperCase().startsWith("COMPRESS")) {
+                        drainResponses();
+                        negotiateCompression(dos, request);
+                        continue;
+                    }
+
+                    // Switch to another named dictionary once earlier requests have been answered.
+                    if (request.split(":")[0].equalsIgnoreCase("USE")) {
+                        drainResponses();
+                        switchDictionary(dos, request);
+                        continue;
+                    }
 
-                // Synchronize output to prevent interleaving responses.
-                synchronized (writeLock) {
-                    try {
-                        dos.writeUTF(response);
+                    // Bulk transfers stream several messages, so they work on the connection directly.
+                    if (request.equalsIgnoreCase("EXPORT")) {
+                        drainResponses();
+                        tenant.recordRequest(false);
+                        exportDictionary(dos);
+                        continue;
                     }
-                    catch (IOException e) {
-                        e.printStackTrace();
+                    if (request.equalsIgnoreCase("IMPORT")) {
+                        drainResponses();
+                        tenant.recordRequest(true);
+                        importDictionary(dis, dos);
+                        continue;
                     }
+
+                    dispatch(request);
                 }
-            };
+            }
+            finally {
+                // Let pending responses go out before the streams are closed
+                drainResponses();
+                writer.interrupt();
+            }
         }
         catch (IOException e) {
             System.out.println("Client disconnected: " + clientSocket.getInetAddress());
         }
         finally {
+            if (tenant != null) {
+                registry.release(tenant);
+            }
+            if (encoder != null) {
+                encoder.close();
+            }
             try {
                 clientSocket.close();
             }
@@ -72,12 +157,191 @@ public class ClientHandler implements Runnable {
     }
 
     /**
-     * Processes a client request based on a simple text-based protocol.
+     * Schedules a request and queues its response for the writer thread behind the responses to earlier requests.
+     * Changes are applied in the order they were sent, after the queries sent before them have run,
+     * and queries wait for earlier changes to be applied.
      */
-    private String processRequest(String request) {
+    private void dispatch(String request) throws IOException {
         String[] tokens = request.split(":");
         String command = tokens[0].toUpperCase();
+        CompletableFuture<String> response;
+        tenant.recordRequest(isWrite(command));
+
+        if (isWrite(command)) {
+            Dictionary target = dictionary;
+            CompletableFuture<WriteOutcome> applied = CompletableFuture.allOf(lastApplied, readsSinceWrite)
+                    .thenCompose(v -> scheduler.submit(CommandScheduler.CommandClass.WRITE,
+                            () -> applyWrite(command, tokens)));
+            response = applied.thenCompose(outcome -> persist(target, outcome));
+            lastApplied = applied.handle((r, e) -> null);
+            readsSinceWrite = CompletableFuture.completedFuture(null);
+        }
+        else {
+            response = lastApplied.thenCompose(
+                    v -> scheduler.submit(CommandScheduler.CommandClass.READ, () -> processRead(command, tokens)));
+            readsSinceWrite = CompletableFuture.allOf(readsSinceWrite, response.handle((r, e) -> null));
+        }
+
+        PendingResponse pending = new PendingResponse(response.handle((r, e) -> (e == null) ? r : describeFailure(e)));
+        try {
+            pendingResponses.put(pending);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to dispatch a request.");
+        }
+        lastWritten = pending.written;
+    }
+
+    /**
+     * Runs on the connection's writer thread, writing each response once it is ready, in request order.
+     */
+    private void writeResponses(DataOutputStream dos) {
+        try {
+            while (true) {
+                PendingResponse pending = pendingResponses.take();
+                try {
+                    writeResponse(dos, pending.response.join());
+                }
+                finally {
+                    pending.written.complete(null);
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            // The connection is closing and every response has been written
+        }
+    }
+
+    /**
+     * Handles "USE:<name>", moving this connection to another named dictionary.
+     * The dictionary is loaded if this is the first session on it.
+     */
+    private void switchDictionary(DataOutputStream dos, String request) {
+        String[] tokens = request.split(":");
+        if (tokens.length < 2) {
+            writeResponse(dos, "Error: No dictionary provided for USE.");
+            return;
+        }
+        String name = tokens[1].trim().toLowerCase();
+        if (!DictionaryRegistry.isValidName(name)) {
+            writeResponse(dos, "Error: Invalid dictionary name.");
+            return;
+        }
+
+        DictionaryRegistry.Tenant next;
+        try {
+            next = registry.acquire(name);
+        }
+        catch (FileNotFoundException e) {
+            writeResponse(dos, "Error: Dictionary not found.");
+            return;
+        }
+        catch (IllegalStateException e) {
+            writeResponse(dos, "Error: Too many dictionaries loaded, try again later.");
+            return;
+        }
+        catch (IOException e) {
+            writeResponse(dos, "Error: Could not load dictionary: " + e.getMessage());
+            return;
+        }
+        registry.release(tenant);
+        useTenant(next);
+        writeResponse(dos, "Success: Using dictionary " + next.getName() + ".");
+    }
+
+    private void useTenant(DictionaryRegistry.Tenant next) {
+        tenant = next;
+        dictionary = next.getDictionary();
+    }
+
+    /**
+     * Waits until every response dispatched so far has been written.
+     */
+    private void drainResponses() {
+        lastWritten.join();
+    }
+
+    /**
+     * Turns a failed command into an error response.
+     */
+    private static String describeFailure(Throwable e) {
+        Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+        if (cause instanceof RejectedExecutionException) {
+            return "Error: Server busy, try again later.";
+        }
+        return "Error: " + cause.getMessage();
+    }
+
+    private static boolean isWrite(String command) {
+        switch (command) {
+            case "ADD":
+            case "REMOVE":
+            case "APPEND":
+            case "UPDATE":
+            case "CAS":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Writes a response using the framing negotiated by this client.
+     */
+    private void writeResponse(DataOutputStream dos, String response) {
+        // Synchronize output to prevent interleaving responses.
+        synchronized (writeLock) {
+            try {
+                if (encoder != null) {
+                    encoder.writeFrame(dos, response);
+                }
+                else {
+                    dos.writeUTF(response);
+                }
+            }
+            catch (UTFDataFormatException e) {
+                // Plain framing cannot carry more than 64KB, so tell the client instead of leaving it waiting
+                try {
+                    dos.writeUTF("Error: Response too large, enable compression or narrow the request.");
+                }
+                catch (IOException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
 
+    /**
+     * Handles a "COMPRESS:<codec>:<dictionaryId>" request. Only DEFLATE is supported, and only with the
+     * preset dictionary whose Adler-32 checksum is {@link ResponseEncoder#DICTIONARY_ID}.
+     * Any other request is refused and the framing stays as it is.
+     * The reply is written with the current framing, and the new framing applies to every response after it.
+     */
+    private void negotiateCompression(DataOutputStream dos, String request) {
+        String[] tokens = request.split(":");
+        if (tokens.length < 2 || !tokens[1].trim().equalsIgnoreCase("DEFLATE")) {
+            writeResponse(dos, "Error: Unsupported compression.");
+            return;
+        }
+        if (tokens.length < 3 || !tokens[2].trim().equals(Long.toString(ResponseEncoder.DICTIONARY_ID))) {
+            writeResponse(dos, "Error: Compression dictionary mismatch, expected "
+                    + ResponseEncoder.DICTIONARY_ID + ".");
+            return;
+        }
+        writeResponse(dos, "Success: Compression enabled.");
+        if (encoder == null) {
+            encoder = new ResponseEncoder();
+        }
+    }
+
+    /**
+     * Processes a read-only client request based on a simple text-based protocol.
+     */
+    private String processRead(String command, String[] tokens) {
         switch (command) {
             case "QUERY":
                 if (tokens.length < 2) {
@@ -87,100 +351,360 @@ public class ClientHandler implements Runnable {
                 var meanings = dictionary.query(queryWord);
                 return (meanings != null) ? "Meanings: " + meanings.toString() : "Error: Word not found.";
 
+            case "GET":
+                if (tokens.length < 2) {
+                    return "Error: No word provided for GET.";
+                }
+                var entry = dictionary.get(tokens[1]);
+                return (entry != null)
+                        ? "Version: " + entry.getKey() + ", Meanings: " + entry.getValue()
+                        : "Error: Word not found.";
+
+            case "SCAN":
+                return scan(tokens);
+
+            case "STATS":
+                return stats();
+
+            default:
+                return "Error: Unknown command.";
+        }
+    }
+
+    /**
+     * Applies a client request that changes the dictionary, without saving it.
+     */
+    private WriteOutcome applyWrite(String command, String[] tokens) {
+        switch (command) {
             case "ADD":
                 if (tokens.length < 3) {
-                    return "Error: Insufficient parameters for ADD.";
+                    return WriteOutcome.respond("Error: Insufficient parameters for ADD.");
                 }
 
                 String newWord = tokens[1];
                 String meaningsStr = tokens[2];
 
                 // Expecting multiple meanings separated by semicolons.
-                String[] meaningsArr = meaningsStr.split(";");
-                java.util.Set<String> meaningsSet = new java.util.HashSet<>();
-                for (String m : meaningsArr) {
-                    if (!m.trim().isEmpty()) {
-                        meaningsSet.add(m.trim());
-                    }
-                }
+                java.util.Set<String> meaningsSet = parseMeanings(meaningsStr);
 
                 try {
                     boolean added = dictionary.addWord(newWord, meaningsSet);
-                    if (added){
-                        try {
-                            dictionary.saveToFile();
-                        }
-                        catch (IOException e){
-                            return "Success: Word added, but error saving file: " + e.getMessage();
-                        }
-                        return "Success: Word added.";
-                    }
-                    else{
-                        return "Error: Word already exists.";
-                    }
+                    return added ? WriteOutcome.save("Word added") : WriteOutcome.respond("Error: Word already exists.");
                 }
                 catch (IllegalArgumentException e) {
-                    return "Error: " + e.getMessage(); // Will need to expand on this error
+                    return WriteOutcome.respond("Error: " + e.getMessage()); // Will need to expand on this error
                 }
 
             case "REMOVE":
                 if (tokens.length < 2) {
-                    return "Error: No word provided for REMOVE.";
+                    return WriteOutcome.respond("Error: No word provided for REMOVE.");
                 }
                 String removeWord = tokens[1];
                 boolean removed = dictionary.removeWord(removeWord);
-                if (removed) {
-                    try {
-                        dictionary.saveToFile();
-                    }
-                    catch (IOException e) {
-                        return "Success: Word removed, but error saving file: " + e.getMessage();
-                    }
-                    return "Success: Word removed.";
-                }
-                else {
-                    return "Error: Word not found.";
-                }
+                return removed ? WriteOutcome.save("Word removed") : WriteOutcome.respond("Error: Word not found.");
 
             case "APPEND":
                 if (tokens.length < 3) {
-                    return "Error: Insufficient parameters for APPEND.";
+                    return WriteOutcome.respond("Error: Insufficient parameters for APPEND.");
                 }
                 String existWord = tokens[1];
                 String newMeaning = tokens[2];
                 boolean appended = dictionary.addMeaning(existWord, newMeaning);
-                if (appended) {
-                    try {
-                        dictionary.saveToFile();
-                    } catch (IOException e) {
-                        return "Success: Meaning added, but error saving file: " + e.getMessage();
-                    }
-                    return "Success: Meaning added.";
-                } else {
-                    return "Error: Word not found or meaning already exists.";
-                }
+                return appended
+                        ? WriteOutcome.save("Meaning added")
+                        : WriteOutcome.respond("Error: Word not found or meaning already exists.");
 
             case "UPDATE":
                 if (tokens.length < 4) {
-                    return "Error: Insufficient parameters for UPDATE.";
+                    return WriteOutcome.respond("Error: Insufficient parameters for UPDATE.");
                 }
                 String updateWord = tokens[1];
                 String oldMeaning = tokens[2];
                 String updatedMeaning = tokens[3];
                 boolean updated = dictionary.updateMeaning(updateWord, oldMeaning, updatedMeaning);
-                if (updated) {
-                    try {
-                        dictionary.saveToFile();
-                    } catch (IOException e) {
-                        return "Success: Meaning updated, but error saving file: " + e.getMessage();
-                    }
-                    return "Success: Meaning updated.";
-                } else {
-                    return "Error: Word or old meaning not found.";
+                return updated
+                        ? WriteOutcome.save("Meaning updated")
+                        : WriteOutcome.respond("Error: Word or old meaning not found.");
+
+            case "CAS":
+                if (tokens.length < 4) {
+                    return WriteOutcome.respond("Error: Insufficient parameters for CAS.");
+                }
+                long expectedVersion;
+                try {
+                    expectedVersion = Long.parseLong(tokens[2].trim());
+                }
+                catch (NumberFormatException e) {
+                    return WriteOutcome.respond("Error: Invalid version for CAS.");
+                }
+                try {
+                    long newVersion = dictionary.compareAndSet(tokens[1], expectedVersion, parseMeanings(tokens[3]));
+                    return (newVersion < 0)
+                            ? WriteOutcome.respond("Error: Version mismatch.")
+                            : WriteOutcome.save("Word set to version " + newVersion);
+                }
+                catch (IllegalArgumentException e) {
+                    return WriteOutcome.respond("Error: " + e.getMessage());
                 }
 
             default:
-                return "Error: Unknown command.";
+                return WriteOutcome.respond("Error: Unknown command.");
+        }
+    }
+
+    /**
+     * Waits for a save that includes an applied change and returns the response to it,
+     * which reports a failed save after confirming the change.
+     */
+    private CompletableFuture<String> persist(Dictionary target, WriteOutcome outcome) {
+        if (!outcome.needsSave) {
+            return CompletableFuture.completedFuture(outcome.response);
+        }
+        return target.requestSave().handle((v, e) -> (e == null)
+                ? "Success: " + outcome.response + "."
+                : "Success: " + outcome.response + ", but error saving file: " + e.getMessage());
+    }
+
+    /**
+     * Handles "STATS", reporting queue depth and wait times per command class,
+     * and the sessions, requests and heap usage of every loaded dictionary.
+     */
+    private String stats() {
+        return "Stats:\n" + scheduler.getStats()
+                + "\nusing: " + tenant.getName()
+                + "\n" + registry.getStats();
+    }
+
+    /**
+     * Handles "EXPORT" by streaming the whole dictionary, as of one snapshot, in chunks of CSV lines
+     * followed by a final status message. Only one chunk is buffered at a time, and blocking socket writes
+     * hold the export back when the client reads slower than the server produces.
+     */
+    private void exportDictionary(DataOutputStream dos) {
+        int count = 0;
+        try (Dictionary.Snapshot snapshot = dictionary.snapshot()) {
+            StringBuilder chunk = new StringBuilder(DATA_PREFIX);
+            var entries = snapshot.range(null, null);
+            while (entries.hasNext()) {
+                var entry = entries.next();
+                appendLine(dos, chunk, Dictionary.formatLine(entry.getKey(), entry.getValue().getMeanings()));
+                count++;
+            }
+            if (chunk.length() > DATA_PREFIX.length()) {
+                writeResponse(dos, chunk.toString());
+            }
+            writeResponse(dos, "Success: Exported " + count + " words at version " + snapshot.getVersion() + ".");
+        }
+    }
+
+    /**
+     * Adds one line to an export chunk, sending the chunk first if the line does not fit.
+     * A line longer than a chunk is sent in PART_PREFIX pieces, and its last piece goes into the new chunk.
+     */
+    private void appendLine(DataOutputStream dos, StringBuilder chunk, String line) {
+        if (chunk.length() + line.length() + 1 <= CHUNK_CHARS) {
+            chunk.append('\n').append(line);
+            return;
+        }
+        if (chunk.length() > DATA_PREFIX.length()) {
+            writeResponse(dos, chunk.toString());
+            chunk.setLength(DATA_PREFIX.length());
+        }
+        int start = 0;
+        while (line.length() - start + 1 > CHUNK_CHARS - DATA_PREFIX.length()) {
+            int end = start + CHUNK_CHARS - PART_PREFIX.length();
+            if (Character.isHighSurrogate(line.charAt(end - 1))) {
+                end--; // Keep surrogate pairs in one piece
+            }
+            writeResponse(dos, PART_PREFIX + line.substring(start, end));
+            start = end;
+        }
+        chunk.append('\n').append(line, start, line.length());
+    }
+
+    /**
+     * Handles "IMPORT". After the server answers "Ready", the client sends chunks of CSV lines
+     * and then "END". Every word goes through the bulk insert path, replacing existing meanings,
+     * and the file is saved once at the end, or when the client disconnects part way through.
+     * Only one chunk, plus any line being reassembled from pieces, is held in memory at a time.
+     * After an unexpected message the rest of the stream is read and discarded up to "END".
+     */
+    private void importDictionary(DataInputStream dis, DataOutputStream dos) throws IOException {
+        writeResponse(dos, "Ready: Send data.");
+
+        int imported = 0;
+        int skipped = 0;
+        String error = null;
+        String saveError = null;
+        StringBuilder pending = new StringBuilder();
+        boolean pendingTooLong = false;
+        try {
+            while (true) {
+                String chunk = dis.readUTF();
+                if (chunk.equals(END_OF_DATA)) {
+                    break;
+                }
+                if (error != null) {
+                    continue;
+                }
+                if (chunk.startsWith(PART_PREFIX)) {
+                    int length = chunk.length() - PART_PREFIX.length();
+                    if (pending.length() + length > MAX_IMPORT_LINE_CHARS) {
+                        pendingTooLong = true;
+                        pending.setLength(0);
+                    }
+                    else if (!pendingTooLong) {
+                        pending.append(chunk, PART_PREFIX.length(), chunk.length());
+                    }
+                    continue;
+                }
+                if (!chunk.startsWith(DATA_PREFIX)) {
+                    error = "Error: Import aborted, expected data or " + END_OF_DATA + ".";
+                    continue;
+                }
+
+                // Chunks start with the prefix followed by newline-separated lines
+                String[] lines = chunk.substring(Math.min(chunk.length(), DATA_PREFIX.length() + 1)).split("\n");
+                for (int i = 0; i < lines.length; i++) {
+                    String line = lines[i];
+                    if (i == 0 && (pendingTooLong || pending.length() > 0)) {
+                        boolean tooLong = pendingTooLong;
+                        line = pending.append(line).toString();
+                        pending.setLength(0);
+                        pendingTooLong = false;
+                        if (tooLong) {
+                            skipped++;
+                            continue;
+                        }
+                    }
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }
+                    var parsed = Dictionary.parseLine(line);
+                    if (parsed == null) {
+                        skipped++;
+                        continue;
+                    }
+                    dictionary.bulkInsert(parsed.getKey(), parsed.getValue());
+                    imported++;
+                }
+            }
+            if (error == null && (pendingTooLong || pending.length() > 0)) {
+                skipped++; // The last line never got its final piece
+            }
+        }
+        finally {
+            // Persist once for the whole import, including a partial or interrupted one
+            if (imported > 0) {
+                try {
+                    dictionary.saveToFile();
+                }
+                catch (IOException e) {
+                    saveError = e.getMessage();
+                    System.out.println("Error saving dictionary after import: " + saveError);
+                }
+            }
+        }
+
+        String summary = imported + " words imported, " + skipped + " lines skipped";
+        if (error != null) {
+            writeResponse(dos, error + " " + summary + ".");
+        }
+        else if (saveError != null) {
+            writeResponse(dos, "Success: " + summary + ", but error saving file: " + saveError);
+        }
+        else {
+            writeResponse(dos, "Success: " + summary + ".");
+        }
+    }
+
+    /**
+     * Handles "SCAN[:from[:to[:limit]]]", listing words in [from, to) with their versions
+     * as of a single snapshot. If the limit is reached, the last line names the word to continue from.
+     */
+    private String scan(String[] tokens) {
+        String from = (tokens.length > 1 && !tokens[1].isEmpty()) ? tokens[1] : null;
+        String to = (tokens.length > 2 && !tokens[2].isEmpty()) ? tokens[2] : null;
+        int limit = DEFAULT_SCAN_LIMIT;
+        if (tokens.length > 3) {
+            try {
+                limit = Integer.parseInt(tokens[3].trim());
+            }
+            catch (NumberFormatException e) {
+                return "Error: Invalid limit for SCAN.";
+            }
+            if (limit < 1 || limit > MAX_SCAN_LIMIT) {
+                return "Error: SCAN limit must be between 1 and " + MAX_SCAN_LIMIT + ".";
+            }
+        }
+        if (from != null && to != null && from.toLowerCase().compareTo(to.toLowerCase()) > 0) {
+            return "Error: SCAN start must not come after its end.";
+        }
+
+        try (Dictionary.Snapshot snapshot = dictionary.snapshot()) {
+            StringBuilder sb = new StringBuilder();
+            int count = 0;
+            var entries = snapshot.range(from, to);
+            while (entries.hasNext()) {
+                var entry = entries.next();
+                if (count == limit) {
+                    sb.append("\nNext: ").append(entry.getKey());
+                    break;
+                }
+                sb.append("\n").append(entry.getKey())
+                        .append(" (v").append(entry.getValue().getVersion()).append("): ")
+                        .append(entry.getValue().getMeanings());
+                count++;
+            }
+            return "Scan at version " + snapshot.getVersion() + ": " + count + " words." + sb;
+        }
+    }
+
+    /**
+     * Splits a semicolon-separated list of meanings, dropping blanks.
+     */
+    private static java.util.Set<String> parseMeanings(String meaningsStr) {
+        java.util.Set<String> meaningsSet = new java.util.LinkedHashSet<>();
+        for (String m : meaningsStr.split(";")) {
+            if (!m.trim().isEmpty()) {
+                meaningsSet.add(m.trim());
+            }
+        }
+        return meaningsSet;
+    }
+
+    /**
+     * A response the writer thread is waiting for, and a future completed once it has been written.
+     */
+    private static final class PendingResponse {
+        private final CompletableFuture<String> response;
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        private PendingResponse(CompletableFuture<String> response) {
+            this.response = response;
+        }
+    }
+
+    /**
+     * The result of applying a change: the response, and whether the dictionary has to be saved.
+     */
+    private static final class WriteOutcome {
+        private final String response;
+        private final boolean needsSave;
+
+        private WriteOutcome(String response, boolean needsSave) {
+            this.response = response;
+            this.needsSave = needsSave;
+        }
+
+        // A response to send as it is
+        private static WriteOutcome respond(String response) {
+            return new WriteOutcome(response, false);
+        }
+
+        // A description of an applied change, such as "Word added", to confirm once it is saved
+        private static WriteOutcome save(String change) {
+            return new WriteOutcome(change, true);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,132 @@
+package server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.Supplier;
+
+/**
+ * The CommandScheduler class runs client commands on separate read and write thread pools,
+ * so that queries are never queued behind writes. File saves run on each dictionary's own save thread.
+ * Each pool has a fixed number of threads, its own bounded queue and thread priority,
+ * and keeps its own queue and wait time statistics.
+ * One scheduler is shared by every connection.
+ */
+public class CommandScheduler {
+    /**
+     * The class of a command, which decides the pool it runs on.
+     */
+    public enum CommandClass {
+        READ, WRITE
+    }
+
+    private final ThreadPoolExecutor readPool;
+    private final ThreadPoolExecutor writePool;
+    private final ClassStats readStats = new ClassStats();
+    private final ClassStats writeStats = new ClassStats();
+
+    /**
+     * Constructs a scheduler with the given pool sizes and queue limits.
+     * Read threads run at a higher priority than write threads.
+     */
+    public CommandScheduler(int readThreads, int readQueueLimit, int writeThreads, int writeQueueLimit) {
+        readPool = newPool("dictionary-read-", readThreads, readQueueLimit, Thread.NORM_PRIORITY + 1);
+        writePool = newPool("dictionary-write-", writeThreads, writeQueueLimit, Thread.NORM_PRIORITY);
+    }
+
+    /**
+     * Queues a task on the pool for its command class. The returned future fails with a
+     * RejectedExecutionException if that pool's queue is full.
+     */
+    public <T> CompletableFuture<T> submit(CommandClass commandClass, Supplier<T> task) {
+        ThreadPoolExecutor pool = (commandClass == CommandClass.READ) ? readPool : writePool;
+        ClassStats stats = (commandClass == CommandClass.READ) ? readStats : writeStats;
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            pool.execute(() -> {
+                stats.recordStart(System.nanoTime() - queuedAt);
+                try {
+                    future.complete(task.get());
+                }
+                catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+                finally {
+                    stats.completed.incrementAndGet();
+                }
+            });
+            stats.submitted.incrementAndGet();
+        }
+        catch (RejectedExecutionException e) {
+            stats.rejected.incrementAndGet();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Returns one line of statistics per command class: queue depth, active threads,
+     * submitted, completed and rejected commands, and average and maximum queue wait.
+     */
+    public String getStats() {
+        return "read: " + readStats.describe(readPool) + "\nwrite: " + writeStats.describe(writePool);
+    }
+
+    /**
+     * Stops accepting commands and lets queued ones finish.
+     */
+    public void shutdown() {
+        readPool.shutdown();
+        writePool.shutdown();
+    }
+
+    private static ThreadPoolExecutor newPool(String namePrefix, int threads, int queueLimit, int priority) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(priority);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueLimit), factory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Counters for one command class.
+     */
+    private static final class ClassStats {
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong started = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+        private void recordStart(long waitNanos) {
+            started.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            maxWaitNanos.accumulate(waitNanos);
+        }
+
+        private String describe(ThreadPoolExecutor pool) {
+            long count = started.get();
+            long averageWaitMicros = (count > 0) ? totalWaitNanos.get() / count / 1000 : 0;
+            return "queued=" + pool.getQueue().size()
+                    + " active=" + pool.getActiveCount()
+                    + " submitted=" + submitted.get()
+                    + " completed=" + completed.get()
+                    + " rejected=" + rejected.get()
+                    + " avgWaitUs=" + averageWaitMicros
+                    + " maxWaitUs=" + maxWaitNanos.get() / 1000;
+        }
+    }
+}
@@ -5,30 +5,120 @@ import java.io.FileWriter;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * The Dictionary class manages a thread-safe dictionary of words and their meanings.
  * It supports loading from and saving to a file, as well as querying and modifying dictionary entries.
+ *
+ * <p>Every write installs a new immutable {@link DictionaryEntry} stamped with a version from a global clock.
+ * A {@link Snapshot} reads the dictionary as it was at a single version while writers carry on,
+ * and older versions are kept only as long as an open snapshot can still read them.
+ *
+ * <p>With a heap budget, the least recently used words are moved to an off-heap {@link SegmentStore}
+ * whenever the estimated heap used by words goes over the budget, and moved back when they are queried.
+ * The estimate counts the current version of every word, including the word, map node and bookkeeping
+ * a cold word keeps on heap, so a budget below that per-word floor cannot be met. Older versions held
+ * for open snapshots, and removed words kept for them, are not counted.
  */
 public class Dictionary {
-    // Thread-safe map storing words and their meanings
-    private ConcurrentMap<String, Set<String>> dictionary;
+    // Returned by a Change to leave the entry as it is
+    private static final Set<String> UNCHANGED = Collections.emptySet();
+
+    // Thread-safe sorted map storing words and the newest version of their meanings
+    private ConcurrentNavigableMap<String, DictionaryEntry> dictionary;
     private final String filepath;
     private final Object fileLock = new Object();
 
+    // Version clock, incremented by every write. Versions are not saved, so every load moves the clock
+    // up to the load time shifted left by VERSION_TIME_SHIFT; a version can only repeat across loads if a
+    // dictionary averaged more than a million writes per millisecond since it was loaded.
+    private static final int VERSION_TIME_SHIFT = 20;
+    private final AtomicLong clock = new AtomicLong();
+
+    // Writers hold the read lock while they stamp and install a version; taking a snapshot holds
+    // the write lock just long enough to read the clock, so every version up to it is installed
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+
+    // Open snapshot versions and how many snapshots are open at each
+    private final ConcurrentSkipListMap<Long, Integer> openSnapshots = new ConcurrentSkipListMap<>();
+
+    // Words whose head still links to older versions or is a tombstone, swept when the last snapshot closes
+    private final Set<String> withHistory = ConcurrentHashMap.newKeySet();
+
+    // Heap budget in bytes, 0 for no limit, and the off-heap store for words evicted over it.
+    // A dictionary created with a budget can have it changed later, but never to no limit.
+    private volatile long heapBudget;
+    private final SegmentStore coldStore;
+
+    // Estimated heap used by the current version of every word
+    private final AtomicLong heapBytes = new AtomicLong();
+
+    // Heap count of the dictionary with every word cold, as of the last eviction, if that is over the target.
+    // Eviction then waits for a quarter budget of growth past it, rather than scanning on every write.
+    private volatile long evictionFloor;
+
+    // How long the save thread of a dictionary stays alive without saves to run
+    private static final long SAVE_THREAD_IDLE_SECONDS = 30;
+
+    // Runs the saves of this dictionary on its own thread, so saves never hold up the command pools
+    private final ThreadPoolExecutor saver;
+
+    // The save that will include every change applied so far, set until that save starts, guarded by saveLock.
+    // At most one save is queued at a time, so the saver's queue stays short.
+    private final Object saveLock = new Object();
+    private CompletableFuture<Void> pendingSave;
+    private final AtomicLong saveFailures = new AtomicLong();
+
+    // Set while one thread is evicting, so others do not pile in behind it
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
 
     /**
      * Constructs a new Dictionary with the specified file path.
      */
     public Dictionary(String filepath){
+        this(filepath, 0);
+    }
+
+    /**
+     * Constructs a new Dictionary with the specified file path and heap budget in bytes.
+     * A budget of 0 keeps every word on heap.
+     */
+    public Dictionary(String filepath, long heapBudget){
+        if (heapBudget < 0) {
+            throw new IllegalArgumentException("Heap budget must not be negative.");
+        }
         this.filepath = filepath;
-        dictionary = new ConcurrentHashMap<>();
+        this.heapBudget = heapBudget;
+        this.coldStore = (heapBudget > 0) ? new SegmentStore(SegmentStore.DEFAULT_SEGMENT_SIZE) : null;
+        this.saver = new ThreadPoolExecutor(1, 1, SAVE_THREAD_IDLE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "dictionary-save-" + filepath);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        saver.allowCoreThreadTimeOut(true);
+        dictionary = new ConcurrentSkipListMap<>();
+        seedClock();
     }
 
     /**
@@ -36,35 +126,31 @@ public class Dictionary {
      * Each line in the file should have the format: word,meaning1,meaning2,...
      */
     protected void loadInitialDictionary() throws IOException {
-        dictionary = new ConcurrentHashMap<>();
+        // Load straight into the live map so words can be evicted while a large file is still loading
+        ConcurrentNavigableMap<String, DictionaryEntry> loaded = new ConcurrentSkipListMap<>();
+        dictionary = loaded;
+        withHistory.clear();
+        heapBytes.set(0);
+        evictionFloor = 0;
+        seedClock();
 
         try (BufferedReader br = new BufferedReader(new FileReader(filepath))){
             String line;
 
             // Read and process each line in the dictionary file
             while ((line = br.readLine()) != null) {
-                line = line.trim();
-
-                if (line.isEmpty()) {
-                    continue; // Skip empty lines
-                }
-
-                String[] tokens = line.split(",");
-
-                if (tokens.length < 2) {
-                    continue; // Skip lines without meanings
-                }
-
-                String word = tokens[0].trim().toLowerCase();
-                Set<String> meanings = new HashSet<>();
-
-                for (int i = 1; i < tokens.length; i++) {
-                    String meaning = tokens[i].trim();
-                    if (!meaning.isEmpty()) {
-                        meanings.add(meaning);
-                    }
+                Map.Entry<String, Set<String>> parsed = parseLine(line);
+                if (parsed != null) {
                     // Store the word with its set of meanings
-                    dictionary.put(word, meanings);
+                    DictionaryEntry entry =
+                            new DictionaryEntry(clock.incrementAndGet(), parsed.getKey(), parsed.getValue(), null);
+                    DictionaryEntry replaced = loaded.put(parsed.getKey(), entry);
+                    if (replaced != null) {
+                        heapBytes.addAndGet(-replaced.uncount());
+                        replaced.release();
+                    }
+                    heapBytes.addAndGet(entry.count());
+                    evictIfOverBudget();
                 }
             }
         }
@@ -73,31 +159,152 @@ public class Dictionary {
 
     /**
      * Saves the current dictionary contents to the file.
+     * The file is written from a snapshot, so it never contains half of a concurrent write.
      */
     protected void saveToFile() throws IOException {
         synchronized (fileLock) {
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(filepath))) {
-                for (Map.Entry<String, Set<String>> entry : dictionary.entrySet()) {
-                    StringBuilder sb = new StringBuilder();
-                    sb.append(entry.getKey());
-                    for (String meaning : entry.getValue()) {
-                        sb.append(",").append(meaning);
-                    }
-                    writer.write(sb.toString());
+            try (Snapshot snapshot = snapshot();
+                 BufferedWriter writer = new BufferedWriter(new FileWriter(filepath))) {
+                Iterator<Map.Entry<String, DictionaryEntry>> entries = snapshot.range(null, null);
+                while (entries.hasNext()) {
+                    Map.Entry<String, DictionaryEntry> entry = entries.next();
+                    writer.write(formatLine(entry.getKey(), entry.getValue().getMeanings()));
                     writer.newLine();
                 }
             }
         }
     }
 
+    /**
+     * Schedules a save after a change on the dictionary's own save thread, and returns a future that
+     * completes once a save that includes the change has finished, or fails with the error of that save.
+     * Changes applied before the save starts share it.
+     */
+    protected CompletableFuture<Void> requestSave() {
+        synchronized (saveLock) {
+            if (pendingSave == null) {
+                pendingSave = new CompletableFuture<>();
+                saver.execute(this::saveRequested);
+            }
+            return pendingSave;
+        }
+    }
+
+    /**
+     * Runs the save asked for with {@link #requestSave} on the calling thread, if it has not started yet.
+     * A failed save is logged and counted, and the next change tries again.
+     */
+    protected void saveRequested() {
+        synchronized (fileLock) {
+            CompletableFuture<Void> save;
+            synchronized (saveLock) {
+                save = pendingSave;
+                pendingSave = null;
+            }
+            if (save == null) {
+                return;
+            }
+            try {
+                saveToFile();
+                save.complete(null);
+            }
+            catch (IOException | RuntimeException e) {
+                saveFailures.incrementAndGet();
+                System.out.println("Error saving dictionary " + filepath + ": " + e.getMessage());
+                save.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of background saves that failed.
+     */
+    public long getSaveFailures() {
+        return saveFailures.get();
+    }
+
+    /**
+     * Parses a line in the dictionary file format: word,meaning1,meaning2,...
+     * Returns the lower-cased word and its meanings, or null for blank lines and lines without meanings.
+     */
+    protected static Map.Entry<String, Set<String>> parseLine(String line) {
+        line = line.trim();
+
+        if (line.isEmpty()) {
+            return null; // Skip empty lines
+        }
+
+        String[] tokens = line.split(",");
+
+        if (tokens.length < 2) {
+            return null; // Skip lines without meanings
+        }
+
+        String word = tokens[0].trim().toLowerCase();
+        Set<String> meanings = new LinkedHashSet<>();
+
+        for (int i = 1; i < tokens.length; i++) {
+            String meaning = tokens[i].trim();
+            if (!meaning.isEmpty()) {
+                meanings.add(meaning);
+            }
+        }
+        return (word.isEmpty() || meanings.isEmpty()) ? null : Map.entry(word, freeze(meanings));
+    }
+
+    /**
+     * Formats a word and its meanings as a line of the dictionary file.
+     */
+    protected static String formatLine(String word, Set<String> meanings) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(word);
+        for (String meaning : meanings) {
+            sb.append(",").append(meaning);
+        }
+        return sb.toString();
+    }
+
     /**
      * Returns the set of meanings for a given word.
      */
     protected Set<String> query(String word) {
+        Map.Entry<Long, Set<String>> entry = get(word);
+        return (entry != null) ? entry.getValue() : null;
+    }
+
+    /**
+     * Returns the current version of a word with its meanings, or null if the word does not exist.
+     * A cold word is promoted back on heap.
+     */
+    protected Map.Entry<Long, Set<String>> get(String word) {
         if (word == null) {
             return null;
         }
-        return dictionary.get(word.toLowerCase());
+        String key = word.toLowerCase();
+        while (true) {
+            DictionaryEntry entry = live(dictionary.get(key));
+            if (entry == null) {
+                return null;
+            }
+            entry.touch();
+            if (entry.isCold()) {
+                heapBytes.addAndGet(entry.promote());
+                // If a writer replaced the entry meanwhile, it may have uncounted it before the promotion
+                if (dictionary.get(key) != entry) {
+                    heapBytes.addAndGet(-entry.uncount());
+                }
+                evictIfOverBudget();
+            }
+            // A writer may have replaced and released the entry while it was cold; read the new one then
+            if (!entry.isReleased()) {
+                try {
+                    return Map.entry(entry.getVersion(), entry.getMeanings());
+                }
+                catch (IllegalStateException e) {
+                    // Released between the check and the read
+                }
+            }
+        }
     }
 
     /**
@@ -107,10 +314,10 @@ public class Dictionary {
         if (word == null || meanings == null || meanings.isEmpty()) {
             throw new IllegalArgumentException("Word and meanings must not be null or empty.");
         }
-        String key = word.toLowerCase();
+        Set<String> frozen = freeze(meanings);
 
         // Only add if the word doesn't already exist
-        return dictionary.putIfAbsent(key, new CopyOnWriteArraySet<>(meanings)) == null;
+        return commit(word.toLowerCase(), current -> (current == null) ? frozen : UNCHANGED) != null;
     }
 
 
@@ -119,7 +326,7 @@ public class Dictionary {
      */
     protected boolean removeWord(String word) {
         if (word == null) return false;
-        return dictionary.remove(word.toLowerCase()) != null;
+        return commit(word.toLowerCase(), current -> (current != null) ? null : UNCHANGED) != null;
     }
 
     /**
@@ -129,13 +336,15 @@ public class Dictionary {
         if (word == null || meaning == null || meaning.trim().isEmpty()) {
             throw new IllegalArgumentException("Word and meaning must not be null or empty.");
         }
-        Set<String> meanings = dictionary.get(word.toLowerCase());
-        if (meanings != null) {
-            synchronized (meanings){
-                return meanings.add(meaning); // returns false if meaning already exists
+        return commit(word.toLowerCase(), current -> {
+            // Fails if the word is missing or the meaning already exists
+            if (current == null || current.getMeanings().contains(meaning)) {
+                return UNCHANGED;
             }
-        }
-        return false;
+            Set<String> meanings = new LinkedHashSet<>(current.getMeanings());
+            meanings.add(meaning);
+            return freeze(meanings);
+        }) != null;
     }
 
 
@@ -148,16 +357,375 @@ public class Dictionary {
                 oldMeaning.trim().isEmpty() || newMeaning.trim().isEmpty()) {
             throw new IllegalArgumentException("Invalid input: word and meanings must not be null or empty.");
         }
-        Set<String> meanings = dictionary.get(word.toLowerCase());
+        return commit(word.toLowerCase(), current -> {
+            if (current == null || !current.getMeanings().contains(oldMeaning)) {
+                return UNCHANGED;
+            }
+            Set<String> meanings = new LinkedHashSet<>(current.getMeanings());
+            meanings.remove(oldMeaning);
+            meanings.add(newMeaning);
+            return freeze(meanings);
+        }) != null;
+    }
+
+    /**
+     * Inserts a word during a bulk import, replacing any existing meanings.
+     * Unlike the single-word operations, callers are expected to call saveToFile once
+     * after the whole import rather than after every word.
+     */
+    protected void bulkInsert(String word, Set<String> meanings) {
+        if (word == null || meanings == null || meanings.isEmpty()) {
+            throw new IllegalArgumentException("Word and meanings must not be null or empty.");
+        }
+        Set<String> frozen = freeze(meanings);
+        commit(word.toLowerCase(), current -> frozen);
+    }
+
+    /**
+     * Replaces the meanings of a word only if its current version matches the expected one.
+     * An expected version of 0 means the word must not exist yet.
+     * Returns the new version, or -1 if the version did not match.
+     */
+    protected long compareAndSet(String word, long expectedVersion, Set<String> meanings) {
+        if (word == null || meanings == null || meanings.isEmpty()) {
+            throw new IllegalArgumentException("Word and meanings must not be null or empty.");
+        }
+        Set<String> frozen = freeze(meanings);
+        DictionaryEntry entry = commit(word.toLowerCase(), current -> {
+            long currentVersion = (current != null) ? current.getVersion() : 0;
+            return (currentVersion == expectedVersion) ? frozen : UNCHANGED;
+        });
+        return (entry != null) ? entry.getVersion() : -1;
+    }
 
-        synchronized (meanings){
-            if (meanings != null && meanings.contains(oldMeaning)) {
-                meanings.remove(oldMeaning);
-                meanings.add(newMeaning);
-                return true;
+    /**
+     * Returns the heap budget in bytes, or 0 if there is no limit.
+     */
+    public long getHeapBudget() {
+        return heapBudget;
+    }
+
+    /**
+     * Changes the heap budget of a dictionary created with one. A lower budget is met on the next call to
+     * {@link #trimToBudget} or the next write, a higher one lets promoted words stay on heap.
+     */
+    public void setHeapBudget(long heapBudget) {
+        if (heapBudget <= 0) {
+            throw new IllegalArgumentException("Heap budget must be positive.");
+        }
+        if (coldStore == null) {
+            throw new IllegalStateException("Dictionary was created without a heap budget.");
+        }
+        this.heapBudget = heapBudget;
+        evictionFloor = 0;
+    }
+
+    /**
+     * Moves words off heap if the heap count is over the budget, for example after the budget was lowered.
+     */
+    public void trimToBudget() {
+        evictIfOverBudget();
+    }
+
+    /**
+     * Returns the estimated heap used by the current version of every word, hot or cold.
+     */
+    public long getHeapBytes() {
+        return heapBytes.get();
+    }
+
+    /**
+     * Returns the number of words whose meanings are currently off heap. This walks the whole dictionary.
+     */
+    public long countColdWords() {
+        long cold = 0;
+        for (DictionaryEntry entry : dictionary.values()) {
+            if (entry.isCold()) {
+                cold++;
             }
         }
-        return false;
+        return cold;
+    }
+
+    /**
+     * Returns the off-heap store for cold words, or null if there is no heap budget.
+     */
+    public SegmentStore getColdStore() {
+        return coldStore;
+    }
+
+    /**
+     * Opens a snapshot of the dictionary as of now. Writers are not blocked while it is open,
+     * but it must be closed so that old versions can be released.
+     */
+    protected Snapshot snapshot() {
+        long version;
+        commitLock.writeLock().lock();
+        try {
+            version = clock.get();
+            openSnapshots.merge(version, 1, Integer::sum);
+        }
+        finally {
+            commitLock.writeLock().unlock();
+        }
+        return new Snapshot(version);
+    }
+
+    /**
+     * Computes and installs a new version of a word. The change is given the current live entry
+     * (null if the word does not exist) and returns the new meanings, null to remove the word,
+     * or UNCHANGED to leave it alone. It may be called more than once if another writer gets in first.
+     * Returns the installed entry, or null if nothing changed.
+     */
+    private DictionaryEntry commit(String key, Change change) {
+        DictionaryEntry installed = install(key, change);
+        if (installed != null) {
+            evictIfOverBudget();
+        }
+        return installed;
+    }
+
+    /**
+     * Installs the new version for {@link #commit} and moves the heap count from the old head to the new one.
+     */
+    private DictionaryEntry install(String key, Change change) {
+        commitLock.readLock().lock();
+        try {
+            while (true) {
+                DictionaryEntry current = dictionary.get(key);
+                Set<String> meanings;
+                try {
+                    meanings = change.apply(live(current));
+                }
+                catch (IllegalStateException e) {
+                    // Another writer replaced and released the entry while it was cold; retry on the new one
+                    if (dictionary.get(key) != current) {
+                        continue;
+                    }
+                    throw e;
+                }
+                if (meanings == UNCHANGED) {
+                    return null;
+                }
+
+                DictionaryEntry next = new DictionaryEntry(clock.incrementAndGet(), key, meanings, current);
+                boolean installed = (current == null)
+                        ? dictionary.putIfAbsent(key, next) == null
+                        : dictionary.replace(key, current, next);
+                if (installed) {
+                    heapBytes.addAndGet(next.count());
+                    if (current != null) {
+                        heapBytes.addAndGet(-current.uncount());
+                    }
+                    next.prune(oldestSnapshotVersion());
+                    // A tombstone no snapshot can see past is not needed at all
+                    if (next.isTombstone() && !next.hasHistory()) {
+                        dictionary.remove(key, next);
+                    }
+                    else if (next.isTombstone() || next.hasHistory()) {
+                        withHistory.add(key);
+                    }
+                    return next;
+                }
+            }
+        }
+        finally {
+            commitLock.readLock().unlock();
+        }
     }
-}
 
+    /**
+     * Releases a snapshot. Once the last snapshot is closed, the history kept for it is dropped.
+     * Only words that were changed while snapshots were open are visited.
+     */
+    private void release(long version) {
+        openSnapshots.computeIfPresent(version, (v, count) -> (count > 1) ? count - 1 : null);
+
+        commitLock.readLock().lock();
+        try {
+            if (!openSnapshots.isEmpty()) {
+                return;
+            }
+            for (String key : withHistory) {
+                // Removed before pruning, so a writer that adds history meanwhile adds the word back
+                withHistory.remove(key);
+                DictionaryEntry head = dictionary.get(key);
+                if (head == null) {
+                    continue;
+                }
+                head.prune(Long.MAX_VALUE);
+                if (head.isTombstone()) {
+                    dictionary.remove(key, head);
+                }
+            }
+        }
+        finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Moves the least recently used words off heap once the heap count is over budget,
+     * until it is back under three quarters of the budget so that evictions come in batches.
+     */
+    private void evictIfOverBudget() {
+        long used = heapBytes.get();
+        long budget = heapBudget;
+        if (coldStore == null || used <= budget || used <= evictionFloor + budget / 4
+                || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Access times keep changing, so sort on a copy taken once per entry. Also add up what every word
+            // would still count once cold, which is as low as eviction can get.
+            List<Map.Entry<Long, DictionaryEntry>> hot = new ArrayList<>();
+            long floor = 0;
+            for (DictionaryEntry entry : dictionary.values()) {
+                if (entry.isTombstone()) {
+                    continue;
+                }
+                floor += entry.getColdBytes();
+                if (!entry.isCold()) {
+                    hot.add(Map.entry(entry.getLastAccess(), entry));
+                }
+            }
+            hot.sort(Map.Entry.comparingByKey());
+
+            long target = budget - budget / 4;
+            for (Map.Entry<Long, DictionaryEntry> entry : hot) {
+                if (heapBytes.get() <= target) {
+                    break;
+                }
+                try {
+                    heapBytes.addAndGet(-entry.getValue().demote(coldStore));
+                }
+                catch (RuntimeException | OutOfMemoryError e) {
+                    // The change that triggered eviction is already installed, so never fail it from here
+                    System.out.println("Error moving a word off heap: " + e);
+                }
+            }
+            evictionFloor = (floor > target) ? floor : 0;
+        }
+        finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Moves the version clock past any version handed out before this load, so that a version a client
+     * read from an earlier load of the same file cannot match a different value now.
+     */
+    private void seedClock() {
+        long floor = System.currentTimeMillis() << VERSION_TIME_SHIFT;
+        clock.accumulateAndGet(floor, Math::max);
+    }
+
+    private long oldestSnapshotVersion() {
+        Map.Entry<Long, Integer> oldest = openSnapshots.firstEntry();
+        return (oldest != null) ? oldest.getKey() : Long.MAX_VALUE;
+    }
+
+    private static DictionaryEntry live(DictionaryEntry entry) {
+        return (entry == null || entry.isTombstone()) ? null : entry;
+    }
+
+    private static Set<String> freeze(Set<String> meanings) {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(meanings));
+    }
+
+    /**
+     * A change applied to the current entry of a word by {@link #commit}.
+     */
+    private interface Change {
+        Set<String> apply(DictionaryEntry current);
+    }
+
+    /**
+     * A consistent, read-only view of the dictionary at a single version.
+     */
+    public class Snapshot implements AutoCloseable {
+        private final long version;
+        private boolean closed;
+
+        private Snapshot(long version) {
+            this.version = version;
+        }
+
+        /**
+         * Returns the version this snapshot reads at.
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Returns the entry of a word as of this snapshot, or null if it did not exist.
+         */
+        public DictionaryEntry get(String word) {
+            if (word == null) {
+                return null;
+            }
+            DictionaryEntry head = dictionary.get(word.toLowerCase());
+            return (head != null) ? live(head.visibleAt(version)) : null;
+        }
+
+        /**
+         * Lazily iterates the words in [from, to) in order as of this snapshot.
+         * A null bound leaves that end of the range open.
+         */
+        public Iterator<Map.Entry<String, DictionaryEntry>> range(String from, String to) {
+            ConcurrentNavigableMap<String, DictionaryEntry> view = dictionary;
+            if (from != null && to != null) {
+                view = view.subMap(from.toLowerCase(), true, to.toLowerCase(), false);
+            }
+            else if (from != null) {
+                view = view.tailMap(from.toLowerCase(), true);
+            }
+            else if (to != null) {
+                view = view.headMap(to.toLowerCase(), false);
+            }
+            Iterator<Map.Entry<String, DictionaryEntry>> heads = view.entrySet().iterator();
+
+            return new Iterator<>() {
+                private Map.Entry<String, DictionaryEntry> next = advance();
+
+                private Map.Entry<String, DictionaryEntry> advance() {
+                    while (heads.hasNext()) {
+                        Map.Entry<String, DictionaryEntry> head = heads.next();
+                        DictionaryEntry visible = live(head.getValue().visibleAt(version));
+                        if (visible != null) {
+                            return Map.entry(head.getKey(), visible);
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public Map.Entry<String, DictionaryEntry> next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    Map.Entry<String, DictionaryEntry> current = next;
+                    next = advance();
+                    return current;
+                }
+            };
+        }
+
+        /**
+         * Releases this snapshot. Closing it more than once has no effect.
+         */
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                release(version);
+            }
+        }
+    }
+}
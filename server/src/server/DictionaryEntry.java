@@ -0,0 +1,298 @@
+package server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The DictionaryEntry class is one immutable version of a word's meanings.
+ * Versions of the same word are chained from newest to oldest so that open snapshots
+ * can still read the version that was current when they were taken.
+ * A version with no meanings is a tombstone left behind by a removal.
+ *
+ * <p>When the dictionary has a heap budget, the meanings of a cold entry are moved to a {@link SegmentStore}
+ * and read back from there until the entry is promoted again. The heap counted for an entry covers its word
+ * and map node as well as its meanings, so a cold entry still counts what it keeps on heap.
+ * The dictionary releases an entry once it has dropped out of every version chain, which frees its off-heap copy;
+ * the meanings of a released cold entry can no longer be read.
+ */
+public class DictionaryEntry {
+    // Heap kept by a cold entry for its slot and the store's record of it
+    private static final long COLD_OVERHEAD_BYTES = 40;
+
+    private final long version;
+    private final boolean tombstone;
+
+    // Estimated heap used by the entry, its word and its map node, with the meanings on heap and while cold
+    private final long heapBytes;
+    private final long coldBytes;
+
+    // On-heap meanings, null while the entry is cold
+    private volatile Set<String> meanings;
+
+    // Off-heap copy of the meanings while the entry is cold, guarded by this
+    private SegmentStore store;
+    private SegmentStore.Slot cold;
+
+    // Set once the entry is no longer part of any version chain, guarded by this
+    private boolean released;
+
+    // Whether the entry is counted towards the dictionary's heap usage, guarded by this.
+    // A counted entry adds heapBytes while hot and coldBytes while cold.
+    private boolean counted;
+
+    // Time of the last access, used to pick entries to evict
+    private volatile long lastAccess;
+
+    // Next older version, cleared once no open snapshot can need it
+    private volatile DictionaryEntry previous;
+
+    DictionaryEntry(long version, String word, Set<String> meanings, DictionaryEntry previous) {
+        this.version = version;
+        this.tombstone = (meanings == null);
+        this.heapBytes = estimateResidentBytes(word) + estimateMeaningBytes(meanings);
+        this.coldBytes = estimateResidentBytes(word) + COLD_OVERHEAD_BYTES;
+        this.meanings = meanings;
+        this.previous = previous;
+        this.lastAccess = System.nanoTime();
+    }
+
+    /**
+     * Returns the version stamp of this entry. Versions grow with every write to the dictionary.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the unmodifiable set of meanings, or null if this version is a tombstone.
+     * The meanings of a cold entry are decoded from the off-heap store without promoting it.
+     * Throws an IllegalStateException if the entry was cold when it was released.
+     */
+    public Set<String> getMeanings() {
+        Set<String> hot = meanings;
+        if (hot != null || tombstone) {
+            return hot;
+        }
+        synchronized (this) {
+            if (meanings == null && released) {
+                throw new IllegalStateException("Entry has been released.");
+            }
+            return (meanings != null) ? meanings : decode(store.read(cold));
+        }
+    }
+
+    /**
+     * Returns true if the meanings of this entry can no longer be read because it was released while cold.
+     */
+    synchronized boolean isReleased() {
+        return released && meanings == null && !tombstone;
+    }
+
+    /**
+     * Returns true if this version records the removal of the word.
+     */
+    public boolean isTombstone() {
+        return tombstone;
+    }
+
+    /**
+     * Returns true if the meanings of this entry are currently held off heap.
+     */
+    public boolean isCold() {
+        return !tombstone && meanings == null;
+    }
+
+    /**
+     * Returns the estimated heap this entry counts for while cold.
+     */
+    long getColdBytes() {
+        return coldBytes;
+    }
+
+    /**
+     * Records an access for eviction ordering.
+     */
+    void touch() {
+        lastAccess = System.nanoTime();
+    }
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * Starts counting this entry towards the dictionary's heap usage.
+     * Returns the number of bytes added.
+     */
+    synchronized long count() {
+        if (counted || tombstone) {
+            return 0;
+        }
+        counted = true;
+        return countedBytes();
+    }
+
+    /**
+     * Stops counting this entry towards the dictionary's heap usage, for example once it has been replaced.
+     * Returns the number of bytes removed.
+     */
+    synchronized long uncount() {
+        if (!counted) {
+            return 0;
+        }
+        counted = false;
+        return countedBytes();
+    }
+
+    /**
+     * Moves the meanings of a counted, hot entry into the store.
+     * Returns the number of heap bytes released from the count.
+     */
+    synchronized long demote(SegmentStore store) {
+        if (!counted || released || meanings == null) {
+            return 0;
+        }
+        cold = store.write(encode(meanings));
+        this.store = store;
+        meanings = null;
+        return heapBytes - coldBytes;
+    }
+
+    /**
+     * Brings the meanings of a cold entry back on heap and frees its off-heap copy, and counts the entry.
+     * Returns the number of heap bytes added to the count.
+     */
+    synchronized long promote() {
+        if (released) {
+            return 0;
+        }
+        long before = uncount();
+        if (meanings == null && !tombstone) {
+            meanings = decode(store.read(cold));
+            store.free(cold);
+            store = null;
+            cold = null;
+        }
+        return count() - before;
+    }
+
+    /**
+     * Marks the entry as no longer part of any version chain and frees its off-heap copy.
+     * Releasing an entry more than once has no effect.
+     */
+    synchronized void release() {
+        released = true;
+        if (cold != null) {
+            store.free(cold);
+            store = null;
+            cold = null;
+        }
+    }
+
+    /**
+     * Returns the newest version in this chain that is visible at the given snapshot version,
+     * or null if the word did not exist yet.
+     */
+    DictionaryEntry visibleAt(long snapshotVersion) {
+        DictionaryEntry entry = this;
+        while (entry != null && entry.version > snapshotVersion) {
+            entry = entry.previous;
+        }
+        return entry;
+    }
+
+    /**
+     * Drops and releases every version older than the one visible at the given snapshot version,
+     * since no open snapshot can read past it.
+     */
+    void prune(long oldestSnapshotVersion) {
+        DictionaryEntry visible = visibleAt(oldestSnapshotVersion);
+        if (visible == null) {
+            return;
+        }
+        DictionaryEntry dropped = visible.previous;
+        visible.previous = null;
+        releaseChain(dropped);
+    }
+
+    /**
+     * Releases an entry and every older version chained to it.
+     */
+    static void releaseChain(DictionaryEntry entry) {
+        while (entry != null) {
+            entry.release();
+            entry = entry.previous;
+        }
+    }
+
+    /**
+     * Returns true if this entry still links to older versions.
+     */
+    boolean hasHistory() {
+        return previous != null;
+    }
+
+    private long countedBytes() {
+        return (meanings != null) ? heapBytes : coldBytes;
+    }
+
+    private static long estimateResidentBytes(String word) {
+        // This entry, the map node and index share, and the word string
+        return 152 + word.length();
+    }
+
+    private static long estimateMeaningBytes(Set<String> meanings) {
+        if (meanings == null) {
+            return 0;
+        }
+        // Set wrapper and backing map, plus a node and a string per meaning
+        long bytes = 96;
+        for (String meaning : meanings) {
+            bytes += 96 + meaning.length();
+        }
+        return bytes;
+    }
+
+    private static byte[] encode(Set<String> meanings) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(meanings.size());
+            for (String meaning : meanings) {
+                // Length and UTF-8 bytes rather than writeUTF, which is limited to 64KB
+                byte[] utf8 = meaning.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+            return bytes.toByteArray();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Set<String> decode(byte[] data) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            int size = in.readInt();
+            Set<String> meanings = new LinkedHashSet<>();
+            for (int i = 0; i < size; i++) {
+                byte[] utf8 = new byte[in.readInt()];
+                in.readFully(utf8);
+                meanings.add(new String(utf8, StandardCharsets.UTF_8));
+            }
+            return Collections.unmodifiableSet(meanings);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package server;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * The DictionaryRegistry class holds the named dictionaries served by one server process.
+ * The default dictionary is the file given on the command line and is always loaded.
+ * Any other name maps to {@code <name>.csv} in the same directory, is loaded the first time a client
+ * selects it, and is unloaded once no client has used it for the idle timeout.
+ * A name whose file is the default file selects the default dictionary, so one file is never loaded twice.
+ *
+ * <p>At most a fixed number of dictionaries, the default one included, are loaded at once; the least
+ * recently used one without sessions is unloaded to make room. The heap budget is shared out evenly
+ * between the dictionaries loaded at the time and shared out again whenever one is loaded or unloaded,
+ * so a dictionary loaded on its own gets the whole budget and one tenant cannot take the heap of the others.
+ * Unless creation is enabled, only dictionaries whose file exists can be used.
+ */
+public class DictionaryRegistry {
+    public static final String DEFAULT_NAME = "default";
+
+    // Names double as file names, so only allow characters that cannot escape the directory
+    private static final Pattern VALID_NAME = Pattern.compile("[a-z0-9_-]{1,64}");
+
+    private final File defaultFile;
+    private final File directory;
+    private final long heapBudget;
+    private final int maxDictionaries;
+    private final boolean createMissing;
+    private final long idleTimeoutMillis;
+    private final ConcurrentMap<String, Tenant> tenants = new ConcurrentHashMap<>();
+
+    // Dictionaries removed from the map whose last save has not finished, which a new load of the file waits for
+    private final ConcurrentMap<String, CompletableFuture<Void>> unloading = new ConcurrentHashMap<>();
+
+    // Held while the budget is shared out, so that the last share set matches the number of tenants
+    private final Object budgetLock = new Object();
+    private final ScheduledExecutorService reaper;
+
+    /**
+     * Constructs a registry for the default dictionary file. Other dictionaries live next to it.
+     * The heap budget covers every loaded dictionary together, and a budget of 0 keeps every word on heap.
+     * If createMissing is set, selecting a dictionary whose file does not exist starts it empty.
+     */
+    public DictionaryRegistry(String defaultFilePath, long heapBudget, int maxDictionaries, boolean createMissing,
+                              long idleTimeoutMillis) {
+        if (maxDictionaries < 1) {
+            throw new IllegalArgumentException("At least one dictionary must be allowed.");
+        }
+        this.defaultFile = new File(defaultFilePath);
+        File parent = defaultFile.getAbsoluteFile().getParentFile();
+        this.directory = (parent != null) ? parent : new File(".");
+        this.heapBudget = heapBudget;
+        this.maxDictionaries = maxDictionaries;
+        this.createMissing = createMissing;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+
+        reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dictionary-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 4);
+        reaper.scheduleWithFixedDelay(this::unloadIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Loads the default dictionary. Unlike other dictionaries, a missing default file is an error.
+     */
+    public void loadDefault() throws IOException {
+        Tenant tenant = tenants.computeIfAbsent(DEFAULT_NAME, this::newTenant);
+        shareHeapBudget();
+        tenant.load(false);
+    }
+
+    /**
+     * Returns true if the name can be used for a dictionary.
+     */
+    public static boolean isValidName(String name) {
+        return name != null && VALID_NAME.matcher(name).matches();
+    }
+
+    /**
+     * Returns the named dictionary, loading it first if needed, and registers one more session on it.
+     * Every call must be matched by a call to {@link #release}.
+     * If creation is enabled, a dictionary whose file does not exist yet starts empty and creates the file
+     * on its first save; otherwise a FileNotFoundException is thrown. An IllegalStateException is thrown
+     * if the dictionary is not loaded and every slot is taken by a dictionary that has sessions.
+     */
+    public Tenant acquire(String name) throws IOException {
+        if (!isValidName(name)) {
+            throw new IllegalArgumentException("Invalid dictionary name: " + name);
+        }
+        String key = resolve(name);
+        Tenant tenant = tenants.computeIfPresent(key, (k, t) -> {
+            t.sessions++;
+            return t;
+        });
+        if (tenant == null) {
+            tenant = create(key);
+        }
+        CompletableFuture<Void> saving = unloading.get(key);
+        if (saving != null) {
+            saving.join();
+        }
+        try {
+            tenant.load(createMissing);
+        }
+        catch (IOException e) {
+            discard(tenant);
+            throw e;
+        }
+        return tenant;
+    }
+
+    /**
+     * Ends a session on a dictionary acquired with {@link #acquire}.
+     */
+    public void release(Tenant tenant) {
+        tenants.computeIfPresent(tenant.name, (key, t) -> {
+            if (t == tenant) {
+                t.sessions--;
+                t.touch();
+            }
+            return t;
+        });
+    }
+
+    /**
+     * Ends a session on a dictionary that failed to load, and drops it unless other sessions still hold it.
+     * Those sessions try to load it again themselves.
+     */
+    private void discard(Tenant tenant) {
+        boolean[] dropped = new boolean[1];
+        tenants.computeIfPresent(tenant.name, (key, t) -> {
+            if (t != tenant) {
+                return t;
+            }
+            t.sessions--;
+            dropped[0] = (t.sessions == 0);
+            return dropped[0] ? null : t;
+        });
+        if (dropped[0]) {
+            shareHeapBudget();
+        }
+    }
+
+    /**
+     * Returns one line per loaded dictionary with its sessions, request counts and heap usage.
+     */
+    public String getStats() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Tenant> entry : new TreeMap<>(tenants).entrySet()) {
+            if (sb.length() > 0) {
+                sb.append("\n");
+            }
+            sb.append(entry.getKey()).append(": ").append(entry.getValue().describe());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Stops unloading idle dictionaries.
+     */
+    public void shutdown() {
+        reaper.shutdown();
+    }
+
+    /**
+     * Registers a tenant for a dictionary that is not loaded yet, with one session on it.
+     * Creation is serialized so that the number of loaded dictionaries stays within the limit.
+     * A dictionary unloaded to make room is saved after the lock is released.
+     */
+    private Tenant create(String name) throws FileNotFoundException {
+        Tenant created;
+        Tenant unloaded = null;
+        synchronized (this) {
+            if (!createMissing && !fileFor(name).exists()) {
+                throw new FileNotFoundException("Dictionary not found: " + name);
+            }
+            if (!tenants.containsKey(name) && tenants.size() >= maxDictionaries) {
+                unloaded = unloadLeastRecentlyUsed();
+                if (unloaded == null) {
+                    throw new IllegalStateException("Too many dictionaries loaded.");
+                }
+            }
+            created = tenants.compute(name, (key, existing) -> {
+                Tenant t = (existing != null) ? existing : newTenant(key);
+                t.sessions++;
+                return t;
+            });
+        }
+        if (unloaded != null) {
+            finishUnload(unloaded);
+        }
+        shareHeapBudget();
+        return created;
+    }
+
+    private Tenant newTenant(String name) {
+        return new Tenant(name, new Dictionary(fileFor(name).getPath(), heapBudget));
+    }
+
+    /**
+     * Gives every loaded dictionary an equal share of the heap budget, and moves words off heap
+     * in the dictionaries whose share went down.
+     */
+    private void shareHeapBudget() {
+        if (heapBudget == 0) {
+            return;
+        }
+        List<Dictionary> lowered = new ArrayList<>();
+        synchronized (budgetLock) {
+            long share = Math.max(1, heapBudget / Math.max(1, tenants.size()));
+            for (Tenant t : tenants.values()) {
+                if (share < t.dictionary.getHeapBudget()) {
+                    lowered.add(t.dictionary);
+                }
+                t.dictionary.setHeapBudget(share);
+            }
+        }
+        for (Dictionary dictionary : lowered) {
+            dictionary.trimToBudget();
+        }
+    }
+
+    private File fileFor(String name) {
+        return name.equals(DEFAULT_NAME) ? defaultFile : new File(directory, name + ".csv");
+    }
+
+    /**
+     * Returns the default name for a name whose file is the default file, and the name itself otherwise.
+     */
+    private String resolve(String name) {
+        if (name.equals(DEFAULT_NAME)) {
+            return name;
+        }
+        File file = fileFor(name);
+        try {
+            return file.getCanonicalFile().equals(defaultFile.getCanonicalFile()) ? DEFAULT_NAME : name;
+        }
+        catch (IOException e) {
+            return file.getAbsoluteFile().equals(defaultFile.getAbsoluteFile()) ? DEFAULT_NAME : name;
+        }
+    }
+
+    /**
+     * Unloads the least recently used dictionary without sessions, other than the default one.
+     * Returns the unloaded tenant, which the caller must pass to {@link #finishUnload},
+     * or null if every loaded dictionary is in use.
+     */
+    private Tenant unloadLeastRecentlyUsed() {
+        // Last use times can change while sorting, so sort on a copy taken once per tenant
+        List<Map.Entry<Long, String>> idle = new ArrayList<>();
+        for (Tenant t : tenants.values()) {
+            if (!t.name.equals(DEFAULT_NAME) && t.sessions == 0) {
+                idle.add(Map.entry(t.lastUsed.get(), t.name));
+            }
+        }
+        idle.sort(Map.Entry.comparingByKey());
+        for (Map.Entry<Long, String> candidate : idle) {
+            Tenant unloaded = unload(candidate.getValue(), Long.MAX_VALUE);
+            if (unloaded != null) {
+                return unloaded;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Drops dictionaries that have had no sessions for the idle timeout.
+     */
+    private void unloadIdle() {
+        long idleSince = System.currentTimeMillis() - idleTimeoutMillis;
+        boolean unloadedAny = false;
+        for (String name : tenants.keySet()) {
+            Tenant unloaded = name.equals(DEFAULT_NAME) ? null : unload(name, idleSince);
+            if (unloaded != null) {
+                finishUnload(unloaded);
+                unloadedAny = true;
+            }
+        }
+        if (unloadedAny) {
+            shareHeapBudget();
+        }
+    }
+
+    /**
+     * Drops a dictionary from the map if it has no sessions and was last used no later than the given time.
+     * Returns the dropped tenant, whose pending save the caller must then run with {@link #finishUnload}
+     * outside any lock, or null if the dictionary is still loaded. Until that save finishes,
+     * a new load of the same file waits for it.
+     */
+    private Tenant unload(String name, long lastUsedBy) {
+        Tenant[] dropped = new Tenant[1];
+        tenants.computeIfPresent(name, (key, t) -> {
+            if (t.sessions != 0 || t.lastUsed.get() > lastUsedBy) {
+                return t;
+            }
+            unloading.put(key, t.unloaded);
+            dropped[0] = t;
+            return null;
+        });
+        return dropped[0];
+    }
+
+    /**
+     * Finishes any save still pending for a dictionary dropped by {@link #unload}.
+     */
+    private void finishUnload(Tenant tenant) {
+        try {
+            tenant.dictionary.saveRequested();
+        }
+        finally {
+            tenant.unloaded.complete(null);
+            unloading.remove(tenant.name, tenant.unloaded);
+        }
+        System.out.println("Unloaded dictionary: " + tenant.name);
+    }
+
+    /**
+     * One named dictionary with its usage counters.
+     */
+    public static final class Tenant {
+        private final String name;
+        private final Dictionary dictionary;
+
+        // Sessions using the dictionary, only changed inside the registry map's compute functions
+        private volatile int sessions;
+        private boolean loaded;
+
+        // Completes once the dictionary has been unloaded and its last save has finished
+        private final CompletableFuture<Void> unloaded = new CompletableFuture<>();
+
+        private final AtomicLong lastUsed = new AtomicLong(System.currentTimeMillis());
+        private final AtomicLong reads = new AtomicLong();
+        private final AtomicLong writes = new AtomicLong();
+
+        private Tenant(String name, Dictionary dictionary) {
+            this.name = name;
+            this.dictionary = dictionary;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Dictionary getDictionary() {
+            return dictionary;
+        }
+
+        /**
+         * Counts a request against this dictionary and marks it as recently used.
+         */
+        public void recordRequest(boolean write) {
+            (write ? writes : reads).incrementAndGet();
+            touch();
+        }
+
+        private void touch() {
+            lastUsed.set(System.currentTimeMillis());
+        }
+
+        /**
+         * Loads the dictionary file once. Sessions that arrive while it loads wait for it.
+         */
+        private synchronized void load(boolean missingIsEmpty) throws IOException {
+            if (loaded) {
+                return;
+            }
+            try {
+                dictionary.loadInitialDictionary();
+            }
+            catch (FileNotFoundException e) {
+                if (!missingIsEmpty) {
+                    throw e;
+                }
+            }
+            loaded = true;
+            System.out.println("Loaded dictionary: " + name);
+        }
+
+        private String describe() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("sessions=").append(sessions)
+                    .append(" reads=").append(reads.get())
+                    .append(" writes=").append(writes.get())
+                    .append(" saveFailures=").append(dictionary.getSaveFailures())
+                    .append(" heapBytes=").append(dictionary.getHeapBytes())
+                    .append(" heapBudget=").append(dictionary.getHeapBudget());
+            SegmentStore coldStore = dictionary.getColdStore();
+            if (coldStore != null) {
+                sb.append(" coldWords=").append(dictionary.countColdWords())
+                        .append(" offHeapBytes=").append(coldStore.getAllocatedBytes());
+            }
+            return sb.toString();
+        }
+    }
+}
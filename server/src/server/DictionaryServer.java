@@ -2,44 +2,109 @@ package server;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSessionContext;
+import java.security.NoSuchAlgorithmException;
 
 
 /**
  * The {@code DictionaryServer} class is the entry point for the dictionary server application.
  * It starts the server, loads the dictionary from the provided file, and listens for client connections.
- * Each client connection is handled in a separate thread.
+ * Each client connection is handled in a separate thread, and commands run on a shared {@link CommandScheduler}.
  *
- * <p>Usage: {@code java DictionaryServer <port> <dictionaryFilePath>}
+ * <p>Usage: {@code java DictionaryServer <port> <dictionaryFilePath> [--tls] [--heap-budget=<size>]
+ * [--max-dictionaries=<n>] [--create-dictionaries]}
+ *
+ * <p>With {@code --tls} the server only accepts TLS connections. The certificate is read from the
+ * keystore named by the standard {@code javax.net.ssl.keyStore} and {@code javax.net.ssl.keyStorePassword}
+ * system properties.
+ *
+ * <p>With {@code --heap-budget} (bytes, or with a k, m or g suffix) the least recently used words are moved
+ * off heap once the estimated heap used by words goes over the budget. It is not a bound on the heap,
+ * since every word keeps its key and index entry on heap while its meanings are off heap.
+ * The budget is split evenly between the dictionaries loaded at the time.
+ *
+ * <p>Clients start on the dictionary file given here and can switch with {@code USE:<name>} to
+ * {@code <name>.csv} in the same directory, which is loaded on first use and unloaded when idle.
+ * At most {@code --max-dictionaries} dictionaries, the default one included, are loaded at once.
+ * A name whose file does not exist is refused unless {@code --create-dictionaries} is given.
  */
 public class DictionaryServer {
+    private static final String USAGE =
+            "Usage: DictionaryServer <port> <dictionaryFilePath> [--tls] [--heap-budget=<size>]"
+                    + " [--max-dictionaries=<n>] [--create-dictionaries]";
+
+    // Thread and queue limits for the read and write command pools
+    private static final int READ_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final int READ_QUEUE_LIMIT = 1000;
+    private static final int WRITE_THREADS = 2;
+    private static final int WRITE_QUEUE_LIMIT = 500;
+
+    // How long a named dictionary may go without sessions before it is unloaded
+    private static final long IDLE_UNLOAD_MILLIS = 10 * 60 * 1000;
+
+    // Named dictionaries loaded at once, including the default one, unless set with --max-dictionaries
+    private static final int DEFAULT_MAX_DICTIONARIES = 8;
+
+    // How long and how many TLS sessions are kept for resumption
+    private static final int TLS_SESSION_TIMEOUT_SECONDS = 24 * 60 * 60;
+    private static final int TLS_SESSION_CACHE_SIZE = 10_000;
 
     /**
      * The main method that launches the dictionary server.
      */
     public static void main(String[] args) {
-        // Validate that two arguments are provided: port and dictionary file path
-        if (args == null || args.length != 2) {
-            throw new IllegalArgumentException("Usage: DictionaryServer <port> <dictionaryFilePath>");
+        // Validate that the port and dictionary file path are provided
+        if (args == null || args.length < 2) {
+            throw new IllegalArgumentException(USAGE);
         }
         // Parse command-line arguments
         int serverPort = Integer.parseInt(args[0]);
         String dictionaryFilePath = args[1];
+        boolean useTls = false;
+        long heapBudget = 0;
+        int maxDictionaries = DEFAULT_MAX_DICTIONARIES;
+        boolean createDictionaries = false;
+
+        // Parse optional flags
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--tls")) {
+                useTls = true;
+            }
+            else if (args[i].startsWith("--heap-budget=")) {
+                heapBudget = parseSize(args[i].substring("--heap-budget=".length()));
+            }
+            else if (args[i].startsWith("--max-dictionaries=")) {
+                maxDictionaries = Integer.parseInt(args[i].substring("--max-dictionaries=".length()));
+                if (maxDictionaries < 1) {
+                    throw new IllegalArgumentException("--max-dictionaries must be at least 1.");
+                }
+            }
+            else if (args[i].equals("--create-dictionaries")) {
+                createDictionaries = true;
+            }
+            else {
+                throw new IllegalArgumentException(USAGE);
+            }
+        }
 
         // Start the server with the provided port and dictionary
-        StartServer(serverPort, dictionaryFilePath);
+        StartServer(serverPort, dictionaryFilePath, useTls, heapBudget, maxDictionaries, createDictionaries);
     }
 
     /**
      * Starts the dictionary server on the specified port and loads the dictionary.
      */
-    private static void StartServer(int port, String dictionaryFilePath) {
-        // Create the loader instance
-        Dictionary dictionary = null;
+    private static void StartServer(int port, String dictionaryFilePath, boolean useTls, long heapBudget,
+                                    int maxDictionaries, boolean createDictionaries) {
+        // Create the registry of named dictionaries
+        DictionaryRegistry registry = new DictionaryRegistry(dictionaryFilePath, heapBudget, maxDictionaries,
+                createDictionaries, IDLE_UNLOAD_MILLIS);
 
         try {
-            // Attempt to load the dictionary from the file
-            dictionary = new Dictionary(dictionaryFilePath);
-            dictionary.loadInitialDictionary();
+            // Attempt to load the default dictionary from the file
+            registry.loadDefault();
         }
         catch (Exception e) {
             // Handle any errors during dictionary loading
@@ -47,9 +112,12 @@ public class DictionaryServer {
             e.printStackTrace();
             System.exit(1);
         }
+        // Commands from every connection run on the shared read and write pools
+        CommandScheduler scheduler = new CommandScheduler(READ_THREADS, READ_QUEUE_LIMIT, WRITE_THREADS, WRITE_QUEUE_LIMIT);
+
         // Start the server socket and continuously listen for client connections
-        try (ServerSocket serverSocket = new ServerSocket(port)) {
-            System.out.println("Dictionary server started on port: " + port);
+        try (ServerSocket serverSocket = useTls ? createTlsServerSocket(port) : new ServerSocket(port)) {
+            System.out.println("Dictionary server started on port: " + port + (useTls ? " (TLS)" : ""));
 
             // Accept and handle each client connection in a new thread
             while (true) {
@@ -57,7 +125,7 @@ public class DictionaryServer {
                 System.out.println("Accepted connection from: " + clientSocket.getInetAddress());
 
                 // Handle client request using a new thread to allow concurrent clients
-                new Thread(new ClientHandler(clientSocket, dictionary)).start();
+                new Thread(new ClientHandler(clientSocket, registry, scheduler)).start();
             }
         }
         catch (IOException e) {
@@ -65,4 +133,53 @@ public class DictionaryServer {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Parses a size in bytes with an optional k, m or g suffix.
+     */
+    private static long parseSize(String size) {
+        String value = size.trim().toLowerCase();
+        long multiplier = 1;
+        if (value.endsWith("k")) {
+            multiplier = 1024L;
+        }
+        else if (value.endsWith("m")) {
+            multiplier = 1024L * 1024;
+        }
+        else if (value.endsWith("g")) {
+            multiplier = 1024L * 1024 * 1024;
+        }
+        if (multiplier > 1) {
+            value = value.substring(0, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value) * multiplier;
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid size: " + size);
+        }
+    }
+
+    /**
+     * Creates a TLS server socket from the default SSL context.
+     * The server session cache is sized for resumption so returning clients skip the full handshake,
+     * and TLS 1.3 clients are resumed with session tickets.
+     */
+    private static ServerSocket createTlsServerSocket(int port) throws IOException {
+        SSLContext context;
+        try {
+            context = SSLContext.getDefault();
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IOException("TLS is not available: " + e.getMessage(), e);
+        }
+
+        SSLSessionContext sessions = context.getServerSessionContext();
+        sessions.setSessionTimeout(TLS_SESSION_TIMEOUT_SECONDS);
+        sessions.setSessionCacheSize(TLS_SESSION_CACHE_SIZE);
+
+        SSLServerSocket serverSocket = (SSLServerSocket) context.getServerSocketFactory().createServerSocket(port);
+        serverSocket.setEnabledProtocols(new String[] {"TLSv1.3", "TLSv1.2"});
+        return serverSocket;
+    }
 }
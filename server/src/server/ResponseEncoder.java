@@ -0,0 +1,101 @@
+package server;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+/**
+ * The ResponseEncoder class writes responses to a client that has negotiated
+ * compressed framing with the "COMPRESS:DEFLATE:<dictionaryId>" command.
+ * Each frame is a flag byte, the uncompressed length and the payload length, followed by the payload.
+ * Payloads above the size threshold are deflated against a preset dictionary of common response text.
+ * One encoder is owned by each connection so the deflater and buffers are reused between responses.
+ */
+public class ResponseEncoder {
+    // Frame flags, must match client.ResponseDecoder
+    public static final byte FLAG_PLAIN = 0;
+    public static final byte FLAG_DEFLATED = 1;
+
+    // Responses smaller than this are not worth compressing
+    public static final int COMPRESSION_THRESHOLD = 512;
+
+    // Preset dictionary shared with client.ResponseDecoder: hand-picked fragments of protocol and meaning text.
+    // Deflate favours matches near the end of the dictionary, so the most common fragments come last.
+    public static final byte[] PRESET_DICTIONARY = (
+            "precipitation technology company elevation surface companion beverage household "
+            + "domesticated electronic device for processing data Used for computing and storage "
+            + "A collection of A large natural A small A common A popular A written work "
+            + "a person who a kind of a type of used to relating to the act of "
+            + "Success: Error: Word not found. Meanings: [A , a , the , of the , and , or , ]"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    // Adler-32 checksum of the preset dictionary, which clients send when negotiating so that
+    // a client with a different copy stays on plain framing instead of failing to inflate
+    public static final long DICTIONARY_ID = dictionaryId(PRESET_DICTIONARY);
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private byte[] buffer = new byte[4096];
+
+    /**
+     * Writes a single response frame, compressing it when it is above the threshold
+     * and compression actually makes it smaller.
+     */
+    public void writeFrame(DataOutputStream dos, String response) throws IOException {
+        byte[] raw = response.getBytes(StandardCharsets.UTF_8);
+
+        if (raw.length >= COMPRESSION_THRESHOLD) {
+            int compressedLength = deflate(raw);
+            if (compressedLength < raw.length) {
+                writeHeader(dos, FLAG_DEFLATED, raw.length, compressedLength);
+                dos.write(buffer, 0, compressedLength);
+                dos.flush();
+                return;
+            }
+        }
+        writeHeader(dos, FLAG_PLAIN, raw.length, raw.length);
+        dos.write(raw);
+        dos.flush();
+    }
+
+    /**
+     * Releases the native resources held by the deflater.
+     */
+    public void close() {
+        deflater.end();
+    }
+
+    /**
+     * Deflates the given bytes into the reusable buffer, growing it if needed.
+     * Returns the number of compressed bytes.
+     */
+    private int deflate(byte[] raw) {
+        deflater.reset();
+        deflater.setDictionary(PRESET_DICTIONARY);
+        deflater.setInput(raw);
+        deflater.finish();
+
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+        return length;
+    }
+
+    private static long dictionaryId(byte[] dictionary) {
+        Adler32 adler = new Adler32();
+        adler.update(dictionary);
+        return adler.getValue();
+    }
+
+    private static void writeHeader(DataOutputStream dos, byte flag, int rawLength, int payloadLength) throws IOException {
+        dos.writeByte(flag);
+        dos.writeInt(rawLength);
+        dos.writeInt(payloadLength);
+    }
+}
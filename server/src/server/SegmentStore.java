@@ -0,0 +1,218 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The SegmentStore class keeps byte records outside the Java heap, in fixed-size direct buffer segments.
+ * Records are appended to the current segment, and a segment is recycled once every record in it has been freed.
+ * When freed records leave more than half of the allocated space unused, the live records of sparse segments
+ * are moved forward so those segments can be recycled. Slots follow their record when it moves.
+ * It is used by the Dictionary to hold the meanings of cold words.
+ */
+public class SegmentStore {
+    // Default size of a segment; larger records get a segment of their own
+    public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    // Number of empty segments kept for reuse instead of being released
+    private static final int MAX_SPARE_SEGMENTS = 2;
+
+    private final int segmentSize;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Deque<Segment> spares = new ArrayDeque<>();
+    private Segment current;
+    private long liveBytes;
+    private long records;
+
+    /**
+     * Constructs an empty store with the given segment size.
+     */
+    public SegmentStore(int segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive.");
+        }
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Copies a record into the store and returns the slot it was written to.
+     */
+    public synchronized Slot write(byte[] data) {
+        Slot slot = new Slot(data.length);
+        place(slot, data);
+        liveBytes += data.length;
+        records++;
+        return slot;
+    }
+
+    /**
+     * Returns a copy of the record held in a slot.
+     */
+    public synchronized byte[] read(Slot slot) {
+        if (slot.freed) {
+            throw new IllegalStateException("Slot has already been freed.");
+        }
+        byte[] data = new byte[slot.length];
+        slot.segment.buffer.get(slot.offset, data);
+        return data;
+    }
+
+    /**
+     * Frees a slot. Freeing a slot more than once has no effect.
+     */
+    public synchronized void free(Slot slot) {
+        if (slot.freed) {
+            return;
+        }
+        slot.freed = true;
+        Segment segment = slot.segment;
+        segment.remove(slot);
+        liveBytes -= slot.length;
+        records--;
+
+        // Recycle segments that no longer hold any records
+        if (segment.liveBytes == 0 && segment != current) {
+            recycle(segment);
+        }
+        else if (segmentBytes() > 2 * liveBytes + 2L * segmentSize) {
+            compact();
+        }
+    }
+
+    /**
+     * Returns the number of bytes held by live records.
+     */
+    public synchronized long getLiveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Returns the number of off-heap bytes allocated, including spare segments.
+     */
+    public synchronized long getAllocatedBytes() {
+        long allocated = segmentBytes();
+        for (Segment segment : spares) {
+            allocated += segment.buffer.capacity();
+        }
+        return allocated;
+    }
+
+    /**
+     * Returns the number of live records.
+     */
+    public synchronized long getRecordCount() {
+        return records;
+    }
+
+    private long segmentBytes() {
+        long allocated = 0;
+        for (Segment segment : segments) {
+            allocated += segment.buffer.capacity();
+        }
+        return allocated;
+    }
+
+    /**
+     * Copies a record into the current segment, starting a new one if it does not fit.
+     */
+    private void place(Slot slot, byte[] data) {
+        if (current == null || current.buffer.capacity() - current.position < data.length) {
+            current = allocate(data.length);
+        }
+        slot.segment = current;
+        slot.offset = current.position;
+        current.buffer.put(current.position, data);
+        current.position += data.length;
+        current.add(slot);
+    }
+
+    /**
+     * Moves the records out of every segment that is less than half full, then recycles those segments.
+     */
+    private void compact() {
+        List<Segment> sparse = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment != current && segment.liveBytes < segment.buffer.capacity() / 2) {
+                sparse.add(segment);
+            }
+        }
+        for (Segment segment : sparse) {
+            for (Slot slot : new ArrayList<>(segment.slots)) {
+                byte[] data = new byte[slot.length];
+                segment.buffer.get(slot.offset, data);
+                segment.remove(slot);
+                place(slot, data);
+            }
+            recycle(segment);
+        }
+    }
+
+    private void recycle(Segment segment) {
+        segments.remove(segment);
+        if (segment.buffer.capacity() == segmentSize && spares.size() < MAX_SPARE_SEGMENTS) {
+            segment.position = 0;
+            spares.push(segment);
+        }
+    }
+
+    private Segment allocate(int minimumSize) {
+        Segment segment;
+        if (minimumSize <= segmentSize && !spares.isEmpty()) {
+            segment = spares.pop();
+        }
+        else {
+            segment = new Segment(ByteBuffer.allocateDirect(Math.max(segmentSize, minimumSize)));
+        }
+        segments.add(segment);
+
+        // The previous segment may already be empty now that it is no longer current
+        if (current != null && current.liveBytes == 0) {
+            recycle(current);
+        }
+        return segment;
+    }
+
+    /**
+     * One direct buffer, its allocation state and the slots that live in it.
+     */
+    private static final class Segment {
+        private final ByteBuffer buffer;
+        private final Set<Slot> slots = Collections.newSetFromMap(new IdentityHashMap<>());
+        private int position;
+        private long liveBytes;
+
+        private Segment(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private void add(Slot slot) {
+            slots.add(slot);
+            liveBytes += slot.length;
+        }
+
+        private void remove(Slot slot) {
+            slots.remove(slot);
+            liveBytes -= slot.length;
+        }
+    }
+
+    /**
+     * The location of a record in the store. It is updated by the store when the record is moved.
+     */
+    public static final class Slot {
+        private final int length;
+        private Segment segment;
+        private int offset;
+        private boolean freed;
+
+        private Slot(int length) {
+            this.length = length;
+        }
+    }
+}